@@ -1,14 +1,20 @@
 package com.flowershop.config;
 
+import com.flowershop.entity.BaseEntity;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 @Component
 public class DatabaseInitializer {
@@ -24,6 +30,8 @@ public class DatabaseInitializer {
 
     @PostConstruct
     public void initialize() {
+        alignIdSequence();
+
         if ("create-drop".equals(ddlAuto) || "create".equals(ddlAuto)) {
             try (Connection connection = dataSource.getConnection()) {
                 // Выполняем только schema_updates.sql
@@ -40,4 +48,66 @@ public class DatabaseInitializer {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Таблицы сущностей, наследующих BaseEntity: раньше id выдавал IDENTITY,
+     * теперь общая последовательность {@link BaseEntity#ID_SEQUENCE}.
+     */
+    private static final List<String> ENTITY_TABLES = List.of(
+            "users", "roles", "categories", "bouquets", "carts", "cart_items",
+            "orders", "order_items", "reviews");
+
+    /**
+     * Переход с IDENTITY на последовательность: создает ее и сдвигает за
+     * максимальный существующий id, чтобы первый выделенный блок не пересекся
+     * с данными. Выполняется при каждом запуске до приема запросов и никогда
+     * не двигает последовательность назад. Колонки остаются
+     * GENERATED BY DEFAULT, поэтому явные id из Hibernate принимаются.
+     */
+    private void alignIdSequence() {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + BaseEntity.ID_SEQUENCE
+                    + " START WITH 1 INCREMENT BY " + BaseEntity.ID_ALLOCATION_SIZE);
+
+            long maxId = 0;
+            for (String table : ENTITY_TABLES) {
+                Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+                if (Boolean.TRUE.equals(exists)) {
+                    Long tableMax = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                    maxId = Math.max(maxId, tableMax != null ? tableMax : 0);
+                }
+            }
+
+            // pooled-оптимизатор берет значения (nextval - шаг, nextval], отсюда запас в один шаг
+            Long value = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + BaseEntity.ID_SEQUENCE + "', GREATEST(?, (SELECT last_value FROM "
+                            + BaseEntity.ID_SEQUENCE + ")))",
+                    Long.class, maxId + BaseEntity.ID_ALLOCATION_SIZE);
+            System.out.println("Entity id sequence aligned: max id " + maxId + ", sequence at " + value);
+        } catch (Exception e) {
+            // Без выравнивания новые id могут совпасть с существующими - не запускаемся
+            System.err.println("Entity id sequence alignment failed: " + e.getMessage());
+            throw new IllegalStateException("Не удалось выровнять последовательность " + BaseEntity.ID_SEQUENCE, e);
+        }
+    }
+
+    /**
+     * Индексы под фильтры страницы управления букетами.
+     * Скрипт идемпотентный (IF NOT EXISTS), поэтому выполняется при каждом запуске,
+     * в том числе при ddl-auto=update, когда Hibernate частичные индексы не создаёт.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection,
+                    new EncodedResource(new ClassPathResource("db/indexes.sql"), "UTF-8"),
+                    true, true,
+                    ScriptUtils.DEFAULT_COMMENT_PREFIX, ScriptUtils.DEFAULT_STATEMENT_SEPARATOR,
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+            System.out.println("Database indexes checked");
+        } catch (Exception e) {
+            System.err.println("Index creation failed: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.flowershop.config;
 
+import com.flowershop.security.GuestCartMergeSuccessHandler;
 import com.flowershop.service.UserService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,9 +17,12 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 public class SecurityConfig {
 
     private final UserService userService;
+    private final GuestCartMergeSuccessHandler loginSuccessHandler;
 
-    public SecurityConfig(@Lazy UserService userService) {
+    public SecurityConfig(@Lazy UserService userService,
+                          @Lazy GuestCartMergeSuccessHandler loginSuccessHandler) {
         this.userService = userService;
+        this.loginSuccessHandler = loginSuccessHandler;
     }
 
     @Bean
@@ -38,6 +42,9 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
+                // Поток событий админки - только администраторам, до общего правила для /api/**
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                 // Public pages - доступны всем (неавторизованным пользователям)
                 .requestMatchers(
                         "/", "/home", "/bouquets", "/bouquets/**",
@@ -45,6 +52,9 @@ public class SecurityConfig {
                         "/register", "/login", "/error", "/api/**"
                 ).permitAll()
 
+                // Гостевая корзина хранится в сессии, страница открыта всем
+                .requestMatchers("/cart").permitAll()
+
                 // User pages - доступны авторизованным пользователям
                 .requestMatchers(
                         "/profile", "/orders/**", "/cart/**"
@@ -60,7 +70,7 @@ public class SecurityConfig {
                 .formLogin(form -> form
                         .loginPage("/login")
                         .loginProcessingUrl("/login")
-                        .defaultSuccessUrl("/home", true)
+                        .successHandler(loginSuccessHandler)
                         .permitAll()
                 )
                 .logout(logout -> logout
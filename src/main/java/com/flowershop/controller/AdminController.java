@@ -1,16 +1,17 @@
 package com.flowershop.controller;
 
+import com.flowershop.dto.DashboardMetrics;
 import com.flowershop.entity.AuditLog;
 import com.flowershop.entity.User;
 import com.flowershop.service.AuditService;
-import com.flowershop.service.BouquetService;
+import com.flowershop.service.DashboardMetricsService;
 import com.flowershop.service.OrderService;
-import com.flowershop.service.UserService;
 import com.flowershop.service.ReportService;
 import com.flowershop.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -27,39 +28,34 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
-    private final UserService userService;
     private final OrderService orderService;
-    private final BouquetService bouquetService;
     private final AuditService auditService;
     private final ReportService reportService;
+    private final DashboardMetricsService dashboardMetricsService;
 
-    public AdminController(UserService userService,
-                           OrderService orderService,
-                           BouquetService bouquetService,
+    public AdminController(OrderService orderService,
                            AuditService auditService,
-                           ReportService reportService) {
-        this.userService = userService;
+                           ReportService reportService,
+                           DashboardMetricsService dashboardMetricsService) {
         this.orderService = orderService;
-        this.bouquetService = bouquetService;
         this.auditService = auditService;
         this.reportService = reportService;
+        this.dashboardMetricsService = dashboardMetricsService;
     }
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
         // Get statistics
-        long totalUsers = userService.findAll().size();
-        long totalOrders = orderService.findAll().size();
-        long totalBouquets = bouquetService.findAll().size();
-        long pendingOrders = orderService.findByStatus(Order.OrderStatus.PENDING).size();
+        DashboardMetrics metrics = dashboardMetricsService.getMetrics();
 
         // Get recent orders (last 5)
-        var recentOrders = orderService.findAll(PageRequest.of(0, 5)).getContent();
+        var recentOrders = orderService.findSummaries(null,
+                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id"))).getContent();
 
-        model.addAttribute("totalUsers", totalUsers);
-        model.addAttribute("totalOrders", totalOrders);
-        model.addAttribute("totalBouquets", totalBouquets);
-        model.addAttribute("pendingOrders", pendingOrders);
+        model.addAttribute("totalUsers", metrics.getTotalUsers());
+        model.addAttribute("totalOrders", metrics.getTotalOrders());
+        model.addAttribute("totalBouquets", metrics.getTotalBouquets());
+        model.addAttribute("pendingOrders", metrics.getPendingOrders());
         model.addAttribute("recentOrders", recentOrders);
 
         return "admin/dashboard";
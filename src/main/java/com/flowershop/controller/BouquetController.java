@@ -1,6 +1,7 @@
 package com.flowershop.controller;
 
 import com.flowershop.dto.BouquetDto;
+import com.flowershop.dto.BouquetFilter;
 import com.flowershop.entity.Bouquet;
 import com.flowershop.service.BouquetService;
 import com.flowershop.service.CategoryService;
@@ -16,13 +17,16 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Controller
 @RequestMapping("/bouquets")
 public class BouquetController {
 
+    // Поля, по которым можно сортировать таблицу управления
+    private static final Set<String> MANAGE_SORT_PROPERTIES =
+            Set.of("id", "name", "price", "stockQuantity", "createdAt");
+
     private final BouquetService bouquetService;
     private final CategoryService categoryService;
     private final FileStorageService fileStorageService;
@@ -42,15 +46,22 @@ public class BouquetController {
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "asc") String direction,
             Model model) {
 
+        if (sort == null || sort.isEmpty()) {
+            sort = "relevance";
+        }
+        // Без поискового запроса релевантности нет - сортируем по названию
+        boolean hasSearch = search != null && !search.trim().isEmpty();
+        String sortProperty = "relevance".equals(sort) && !hasSearch ? "name" : sort;
+
         System.out.println("Filter params - Category: " + categoryId + ", Search: " + search + ", Sort: " + sort + ", Direction: " + direction);
 
         // Создаем сортировку
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Sort sortBy = Sort.by(sortDirection, sort);
+        Sort sortBy = "relevance".equals(sortProperty) ? Sort.unsorted() : Sort.by(sortDirection, sortProperty);
         Pageable pageable = PageRequest.of(page, size, sortBy);
 
         Page<Bouquet> bouquetsPage;
@@ -195,51 +206,42 @@ public class BouquetController {
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "asc") String direction,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             Model model) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
-        Page<Bouquet> bouquetsPage;
-
-        // ПРАВИЛЬНАЯ ЛОГИКА ФИЛЬТРАЦИИ
-        if (search != null && !search.trim().isEmpty()) {
-            // Поиск + статус + категория
-            if (status != null && category != null) {
-                bouquetsPage = applyAllFilters(search, status, category, pageable);
-            }
-            // Поиск + статус
-            else if (status != null) {
-                bouquetsPage = applySearchAndStatus(search, status, pageable);
-            }
-            // Поиск + категория
-            else if (category != null) {
-                bouquetsPage = bouquetService.findBySearchAndCategory(search, category, pageable);
-            }
-            // Только поиск
-            else {
-                bouquetsPage = bouquetService.findBySearchIncludeDeleted(search, pageable);
-            }
+        // При поиске по умолчанию порядок задаёт релевантность из поискового индекса
+        boolean hasSearch = search != null && !search.isBlank();
+        if (sort == null) {
+            sort = hasSearch ? "relevance" : "id";
         }
-        // Без поиска, только статус и/или категория
-        else {
-            if (status != null && category != null) {
-                bouquetsPage = applyStatusAndCategory(status, category, pageable);
-            }
-            // Только статус
-            else if (status != null) {
-                bouquetsPage = applyStatusFilter(status, pageable);
-            }
-            // Только категория
-            else if (category != null) {
-                bouquetsPage = bouquetService.findByCategoryId(category, pageable);
-            }
-            // Без фильтров - все букеты
-            else {
-                bouquetsPage = bouquetService.findAll(pageable);
-            }
+        if ("relevance".equals(sort) ? !hasSearch : !MANAGE_SORT_PROPERTIES.contains(sort)) {
+            sort = "id";
+        }
+        Pageable pageable;
+        if ("relevance".equals(sort)) {
+            pageable = PageRequest.of(page, size);
+        } else {
+            Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort sortBy = "id".equals(sort) ? Sort.by(sortDirection, "id") : Sort.by(sortDirection, sort).and(Sort.by("id"));
+            pageable = PageRequest.of(page, size, sortBy);
         }
 
+        // Все условия уходят в один SQL-запрос, поэтому страницы полные; при поиске
+        // по релевантности выдача ограничена лучшими совпадениями индекса
+        BouquetFilter filter = new BouquetFilter();
+        filter.setSearch(search);
+        filter.applyStatus(status);
+        filter.setCategoryId(category);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+
+        Page<Bouquet> bouquetsPage = bouquetService.findByFilter(filter, pageable);
+
         model.addAttribute("bouquets", bouquetsPage);
         model.addAttribute("categories", categoryService.findAllActive());
         model.addAttribute("search", search);
@@ -247,67 +249,11 @@ public class BouquetController {
         model.addAttribute("category", category);
         model.addAttribute("statusParam", status); // Для пагинации
         model.addAttribute("categoryParam", category); // Для пагинации
+        model.addAttribute("minPrice", minPrice);
+        model.addAttribute("maxPrice", maxPrice);
+        model.addAttribute("currentSort", sort);
+        model.addAttribute("currentDirection", direction);
 
         return "bouquet/manage";
     }
-
-    // Вспомогательные методы для комбинированных фильтров
-    private Page<Bouquet> applyAllFilters(String search, String status, Long category, Pageable pageable) {
-        Page<Bouquet> result = bouquetService.findBySearchAndCategory(search, category, pageable);
-
-        // Конвертируем Streamable в List и создаем новый Page
-        List<Bouquet> filteredContent = result.getContent().stream()
-                .filter(b -> {
-                    if ("active".equals(status)) return !b.getDeleted();
-                    if ("inactive".equals(status)) return b.getDeleted();
-                    if ("out_of_stock".equals(status)) return !b.getInStock();
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        return new PageImpl<>(filteredContent, pageable, filteredContent.size());
-    }
-
-    private Page<Bouquet> applySearchAndStatus(String search, String status, Pageable pageable) {
-        Page<Bouquet> result = bouquetService.findBySearchIncludeDeleted(search, pageable);
-
-        List<Bouquet> filteredContent = result.getContent().stream()
-                .filter(b -> {
-                    if ("active".equals(status)) return !b.getDeleted();
-                    if ("inactive".equals(status)) return b.getDeleted();
-                    if ("out_of_stock".equals(status)) return !b.getInStock();
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        return new PageImpl<>(filteredContent, pageable, filteredContent.size());
-    }
-
-    private Page<Bouquet> applyStatusAndCategory(String status, Long category, Pageable pageable) {
-        Page<Bouquet> result = bouquetService.findByCategoryId(category, pageable);
-
-        List<Bouquet> filteredContent = result.getContent().stream()
-                .filter(b -> {
-                    if ("active".equals(status)) return !b.getDeleted();
-                    if ("inactive".equals(status)) return b.getDeleted();
-                    if ("out_of_stock".equals(status)) return !b.getInStock();
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        return new PageImpl<>(filteredContent, pageable, filteredContent.size());
-    }
-
-    private Page<Bouquet> applyStatusFilter(String status, Pageable pageable) {
-        switch (status) {
-            case "active":
-                return bouquetService.findByDeletedFalse(pageable);
-            case "inactive":
-                return bouquetService.findByDeletedTrue(pageable);
-            case "out_of_stock":
-                return bouquetService.findByInStockFalse(pageable);
-            default:
-                return bouquetService.findAll(pageable);
-        }
-    }
 }
\ No newline at end of file
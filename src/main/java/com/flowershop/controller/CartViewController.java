@@ -1,7 +1,9 @@
 package com.flowershop.controller;
 
 import com.flowershop.service.CartService;
-import com.flowershop.service.UserService;
+import com.flowershop.service.CurrentUserResolver;
+import com.flowershop.service.GuestCartService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,24 +15,37 @@ import org.springframework.web.bind.annotation.RequestMapping;
 public class CartViewController {
 
     private final CartService cartService;
-    private final UserService userService;
+    private final CurrentUserResolver currentUserResolver;
+    private final GuestCartService guestCartService;
 
-    public CartViewController(CartService cartService, UserService userService) {
+    public CartViewController(CartService cartService,
+                              CurrentUserResolver currentUserResolver,
+                              GuestCartService guestCartService) {
         this.cartService = cartService;
-        this.userService = userService;
+        this.currentUserResolver = currentUserResolver;
+        this.guestCartService = guestCartService;
     }
 
     private Long getCurrentUserId(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new RuntimeException("Пользователь не аутентифицирован");
         }
-        String username = authentication.getName();
-        return userService.findByUsername(username).getId();
+        Long userId = currentUserResolver.getUserId(authentication);
+        if (userId == null) {
+            throw new RuntimeException("Пользователь не найден");
+        }
+        return userId;
     }
 
     @GetMapping
-    public String viewCart(Authentication authentication, Model model) {
+    public String viewCart(Authentication authentication, HttpServletRequest request, Model model) {
         try {
+            // Гостю показываем корзину из сессии
+            if (currentUserResolver.getUserId(authentication) == null) {
+                model.addAttribute("cart", guestCartService.getCart(request));
+                return "cart/view";
+            }
+
             Long userId = getCurrentUserId(authentication);
             var cartDto = cartService.getCartForUser(userId);
             model.addAttribute("cart", cartDto);
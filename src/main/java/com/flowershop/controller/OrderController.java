@@ -1,15 +1,21 @@
 package com.flowershop.controller;
 
+import com.flowershop.dto.CursorPage;
 import com.flowershop.dto.OrderDto;
+import com.flowershop.dto.OrderReference;
+import com.flowershop.dto.OrderSummaryView;
 import com.flowershop.entity.Order;
-import com.flowershop.entity.User;
+import com.flowershop.service.CurrentUserResolver;
+import com.flowershop.service.IdempotencyStore;
+import com.flowershop.service.OrderIntakeQueue;
 import com.flowershop.service.OrderService;
-import com.flowershop.service.UserService;
 import com.flowershop.util.ThymeleafUtil;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,19 +26,29 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.Collection;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/orders")
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserService userService;
+    private final CurrentUserResolver currentUserResolver;
     private final ThymeleafUtil thymeleafUtil;
-
-    public OrderController(OrderService orderService, UserService userService, ThymeleafUtil thymeleafUtil) {
+    private final IdempotencyStore idempotencyStore;
+    private final OrderIntakeQueue orderIntakeQueue;
+    private final boolean asyncCheckout;
+
+    public OrderController(OrderService orderService, CurrentUserResolver currentUserResolver,
+                           ThymeleafUtil thymeleafUtil, IdempotencyStore idempotencyStore,
+                           OrderIntakeQueue orderIntakeQueue,
+                           @Value("${orders.intake.checkout-form:false}") boolean asyncCheckout) {
         this.orderService = orderService;
-        this.userService = userService;
+        this.currentUserResolver = currentUserResolver;
         this.thymeleafUtil = thymeleafUtil;
+        this.idempotencyStore = idempotencyStore;
+        this.orderIntakeQueue = orderIntakeQueue;
+        this.asyncCheckout = asyncCheckout;
     }
 
     @ModelAttribute("getStatusBadgeClass")
@@ -71,10 +87,13 @@ public class OrderController {
         }
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username);
+    // id из principal, пользователь из БД не загружается
+    private Long getCurrentUserId() {
+        Long userId = currentUserResolver.getCurrentUserId();
+        if (userId == null) {
+            throw new RuntimeException("Пользователь не найден");
+        }
+        return userId;
     }
 
     // Вспомогательные методы для проверки ролей через SecurityContext
@@ -89,9 +108,10 @@ public class OrderController {
     @GetMapping("/create")
     public String showCreateOrderForm(Model model, Authentication authentication) {
         try {
-            User currentUser = getCurrentUser();
             // Используем OrderDto вместо Order entity
             model.addAttribute("orderDto", new OrderDto());
+            // Ключ формы: повторная отправка (двойной клик, F5) не создаст второй заказ
+            model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
             return "order/create";
         } catch (Exception e) {
             model.addAttribute("error", "Ошибка при создании заказа: " + e.getMessage());
@@ -102,15 +122,30 @@ public class OrderController {
     @PostMapping("/create")
     public String createOrder(@ModelAttribute("orderDto") @Valid OrderDto orderDto,
                               BindingResult result,
+                              @RequestParam(required = false) String idempotencyKey,
                               Authentication authentication,
+                              Model model,
                               RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
+            model.addAttribute("idempotencyKey", idempotencyKey);
             return "order/create";
         }
 
         try {
-            User currentUser = getCurrentUser();
-            Order order = orderService.createOrderFromCart(currentUser.getId(), orderDto);
+            Long userId = getCurrentUserId();
+            if (asyncCheckout) {
+                // Заказ оформится в очереди; итог появится в списке заказов
+                String ticketId = idempotencyStore.execute("order-intake:" + userId, idempotencyKey,
+                        idempotencyStore.fingerprint(orderDto), () -> orderIntakeQueue.submit(userId, orderDto).getId());
+                redirectAttributes.addFlashAttribute("successMessage", "Заказ принят в обработку. Номер заявки: " + ticketId);
+                return "redirect:/orders";
+            }
+
+            OrderReference order = idempotencyStore.execute("order-form:" + userId, idempotencyKey,
+                    idempotencyStore.fingerprint(orderDto), () -> {
+                Order created = orderService.createOrderFromCart(userId, orderDto);
+                return new OrderReference(created.getId(), created.getOrderNumber());
+            });
             redirectAttributes.addFlashAttribute("successMessage", "Заказ успешно создан! Номер заказа: " + order.getOrderNumber());
             return "redirect:/orders";
         } catch (Exception e) {
@@ -124,27 +159,37 @@ public class OrderController {
     public String listOrders(Model model,
                              @RequestParam(defaultValue = "0") int page,
                              @RequestParam(defaultValue = "10") int size) {
-        User currentUser = getCurrentUser();
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
+        Page<OrderSummaryView> orders;
 
         if (isAdmin()) {
-            orders = orderService.findAll(pageable);
+            orders = orderService.findSummaries(null, pageable);
         } else {
-            orders = orderService.findByUserId(currentUser.getId(), pageable);
+            orders = orderService.findSummaries(getCurrentUserId(), pageable);
         }
 
         model.addAttribute("orders", orders);
         return "order/list";
     }
 
+    @GetMapping(params = "cursor")
+    public String listOrdersByCursor(Model model,
+                                     @RequestParam String cursor,
+                                     @RequestParam(defaultValue = "10") int size) {
+        Long userId = isAdmin() ? null : getCurrentUserId();
+
+        CursorPage<OrderSummaryView> orders = orderService.scroll(userId, null, cursor, size, false);
+
+        model.addAttribute("orders", orders);
+        model.addAttribute("cursorMode", true);
+        return "order/list";
+    }
+
     @GetMapping("/{id}")
     public String orderDetails(@PathVariable Long id, Model model) {
         Order order = orderService.findByIdWithItems(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
-        User currentUser = getCurrentUser();
-
-        if (!isAdmin() && !order.getUser().getId().equals(currentUser.getId())) {
+        if (!isAdmin() && !order.getUser().getId().equals(getCurrentUserId())) {
             return "redirect:/access-denied";
         }
 
@@ -1,7 +1,7 @@
 package com.flowershop.controller;
 
+import com.flowershop.service.CsvExportService;
 import com.flowershop.service.ReportService;
-import com.flowershop.util.ExportUtil;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -10,8 +10,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -23,11 +23,11 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
-    private final ExportUtil exportUtil;
+    private final CsvExportService csvExportService;
 
-    public ReportController(ReportService reportService, ExportUtil exportUtil) {
+    public ReportController(ReportService reportService, CsvExportService csvExportService) {
         this.reportService = reportService;
-        this.exportUtil = exportUtil;
+        this.csvExportService = csvExportService;
     }
 
     // 📊 Главная страница отчетов
@@ -48,7 +48,7 @@ public class ReportController {
         if (startDate == null) startDate = LocalDate.now().minusMonths(1);
         if (endDate == null) endDate = LocalDate.now();
 
-        List<Map<String, Object>> salesReport = reportService.getDailySalesReport(startDate);
+        List<Map<String, Object>> salesReport = reportService.getSalesReportByDateRange(startDate, endDate);
         model.addAttribute("salesReport", salesReport);
         model.addAttribute("startDate", startDate);
         model.addAttribute("endDate", endDate);
@@ -93,36 +93,36 @@ public class ReportController {
         return "admin/reports/revenue";
     }
 
-    // 📥 Экспорт отчетов в CSV
+    // 📥 Экспорт отчетов в CSV (потоком, без сборки файла в памяти)
     @GetMapping("/export/sales")
-    public ResponseEntity<byte[]> exportSalesReport() {
-        try {
-            List<Map<String, Object>> salesData = reportService.getSalesReport();
-            InputStream csvStream = exportUtil.exportSalesToCsv(salesData);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=sales-report.csv")
-                    .contentType(MediaType.parseMediaType("text/csv"))
-                    .body(csvStream.readAllBytes());
-
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportSalesReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvResponse("sales-report", gzip, out -> csvExportService.exportSales(out, startDate, endDate, gzip));
     }
 
     @GetMapping("/export/users")
-    public ResponseEntity<byte[]> exportUsersReport() {
-        try {
-            List<Map<String, Object>> usersData = reportService.getUserActivityReport();
-            InputStream csvStream = exportUtil.exportUsersToCsv(usersData);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users-report.csv")
-                    .contentType(MediaType.parseMediaType("text/csv"))
-                    .body(csvStream.readAllBytes());
-
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportUsersReport(
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvResponse("users-report", gzip, out -> csvExportService.exportUsers(out, gzip));
+    }
+
+    @GetMapping("/export/bouquets")
+    public ResponseEntity<StreamingResponseBody> exportBouquetsReport(
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvResponse("bouquets-report", gzip, out -> csvExportService.exportBouquets(out, gzip));
+    }
+
+    private ResponseEntity<StreamingResponseBody> csvResponse(String name, boolean gzip, StreamingResponseBody body) {
+        String filename = gzip ? name + ".csv.gz" : name + ".csv";
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : new MediaType("text", "csv", csvExportService.getCharset());
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(contentType)
+                .body(body);
     }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package com.flowershop.controller;
 
+import com.flowershop.dto.CursorPage;
+import com.flowershop.dto.UserRowView;
 import com.flowershop.entity.User;
 import com.flowershop.entity.UserRole;
 import com.flowershop.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -28,13 +31,26 @@ public class UserController {
     public String listUsers(Model model,
                             @RequestParam(defaultValue = "0") int page,
                             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<User> users = userService.findAll(pageable);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Page<UserRowView> users = userService.findAllRows(pageable);
 
         model.addAttribute("users", users);
         return "admin/users";
     }
 
+    @GetMapping(params = "cursor")
+    public String listUsersByCursor(Model model,
+                                    @RequestParam String cursor,
+                                    @RequestParam(defaultValue = "10") int size,
+                                    @RequestParam(required = false) String search) {
+        CursorPage<UserRowView> users = userService.scrollBySearch(search, cursor, size, false);
+
+        model.addAttribute("users", users);
+        model.addAttribute("search", search);
+        model.addAttribute("cursorMode", true);
+        return "admin/users";
+    }
+
     @PostMapping("/{id}/delete")
     public String deleteUser(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
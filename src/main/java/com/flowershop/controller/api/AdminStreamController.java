@@ -0,0 +1,42 @@
+package com.flowershop.controller.api;
+
+import com.flowershop.service.AdminEventStream;
+import com.flowershop.service.OrderStatusCounters;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminStreamController {
+
+    private final AdminEventStream adminEventStream;
+    private final OrderStatusCounters orderStatusCounters;
+
+    public AdminStreamController(AdminEventStream adminEventStream, OrderStatusCounters orderStatusCounters) {
+        this.adminEventStream = adminEventStream;
+        this.orderStatusCounters = orderStatusCounters;
+    }
+
+    // События: snapshot при подключении, затем order-created и order-changed
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("counts", orderStatusCounters.toView());
+
+        try {
+            return ResponseEntity.ok(adminEventStream.subscribe("snapshot", snapshot));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+    }
+}
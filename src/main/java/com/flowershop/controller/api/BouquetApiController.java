@@ -1,7 +1,9 @@
     package com.flowershop.controller.api;
 
     import com.flowershop.dto.ApiResponse;
+    import com.flowershop.dto.BouquetCardView;
     import com.flowershop.dto.BouquetDto;
+    import com.flowershop.dto.CursorPage;
     import com.flowershop.entity.Bouquet;
     import com.flowershop.service.BouquetService;
     import jakarta.validation.Valid;
@@ -26,7 +28,7 @@
         }
 
         @GetMapping
-        public ResponseEntity<ApiResponse<Page<Bouquet>>> getAllBouquets(
+        public ResponseEntity<ApiResponse<Page<BouquetCardView>>> getAllBouquets(
                 @RequestParam(defaultValue = "0") int page,
                 @RequestParam(defaultValue = "10") int size,
                 @RequestParam(defaultValue = "name") String sortBy,
@@ -37,17 +39,34 @@
                     : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
 
-            Page<Bouquet> bouquets = bouquetService.findAll(pageable);
+            Page<BouquetCardView> bouquets = bouquetService.findAllCards(pageable);
+            return ResponseEntity.ok(ApiResponse.success("Букеты получены успешно", bouquets));
+        }
+
+        // Keyset-режим: ?cursor= для первой страницы, дальше nextCursor из ответа
+        @GetMapping(params = "cursor")
+        public ResponseEntity<ApiResponse<CursorPage<BouquetCardView>>> getBouquetsByCursor(
+                @RequestParam String cursor,
+                @RequestParam(defaultValue = "10") int size,
+                @RequestParam(defaultValue = "name") String sortBy,
+                @RequestParam(defaultValue = "asc") String sortDirection,
+                @RequestParam(defaultValue = "false") boolean withCount) {
+
+            Sort sort = sortDirection.equalsIgnoreCase("desc")
+                    ? Sort.by(sortBy).descending()
+                    : Sort.by(sortBy).ascending();
+
+            CursorPage<BouquetCardView> bouquets = bouquetService.scroll(cursor, size, sort, withCount);
             return ResponseEntity.ok(ApiResponse.success("Букеты получены успешно", bouquets));
         }
 
         @GetMapping("/active")
-        public ResponseEntity<ApiResponse<Page<Bouquet>>> getActiveBouquets(
+        public ResponseEntity<ApiResponse<Page<BouquetCardView>>> getActiveBouquets(
                 @RequestParam(defaultValue = "0") int page,
                 @RequestParam(defaultValue = "12") int size) {
 
             Pageable pageable = PageRequest.of(page, size);
-            Page<Bouquet> bouquets = bouquetService.findActiveBouquets(pageable);
+            Page<BouquetCardView> bouquets = bouquetService.findActiveCards(pageable);
             return ResponseEntity.ok(ApiResponse.success("Активные букеты получены успешно", bouquets));
         }
 
@@ -2,48 +2,45 @@ package com.flowershop.controller.api;
 
 import com.flowershop.dto.AddToCartRequest;
 import com.flowershop.dto.ApiResponse;
+import com.flowershop.dto.CartBatchRequest;
 import com.flowershop.dto.CartDto;
 import com.flowershop.service.CartService;
-import com.flowershop.service.UserService;
+import com.flowershop.service.CurrentUserResolver;
+import com.flowershop.service.GuestCartService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/cart")
 public class CartController {
 
     private final CartService cartService;
-    private final UserService userService;
+    private final CurrentUserResolver currentUserResolver;
+    private final GuestCartService guestCartService;
 
-    public CartController(CartService cartService, UserService userService) {
+    public CartController(CartService cartService,
+                          CurrentUserResolver currentUserResolver,
+                          GuestCartService guestCartService) {
         this.cartService = cartService;
-        this.userService = userService;
+        this.currentUserResolver = currentUserResolver;
+        this.guestCartService = guestCartService;
     }
 
+    // id берется из principal, без запроса пользователя и ролей
     private Long getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            System.out.println("User not authenticated!");
-            return null; // Возвращаем null вместо исключения
-        }
-        String username = authentication.getName();
-        System.out.println("Username from authentication: " + username);
-
-        try {
-            var user = userService.findByUsername(username);
-            System.out.println("Found user: " + user.getId() + " - " + user.getUsername());
-            return user.getId();
-        } catch (Exception e) {
-            System.out.println("Error finding user: " + e.getMessage());
-            return null; // Возвращаем null вместо исключения
-        }
+        return currentUserResolver.getUserId(authentication);
     }
 
     // ПЕРВЫЕ - СПЕЦИФИЧНЫЕ МАРШРУТЫ БЕЗ ПАРАМЕТРОВ
     @PostMapping("/add")
     public ResponseEntity<ApiResponse<CartDto>> addToCart(
             Authentication authentication,
+            HttpServletRequest httpRequest,
             @Valid @RequestBody AddToCartRequest request) {
         try {
             System.out.println("=== CART ADD REQUEST ===");
@@ -54,9 +51,10 @@ public class CartController {
 
             // Проверяем авторизацию
             if (userId == null) {
-                System.out.println("User not authenticated - returning 401");
-                return ResponseEntity.status(401)
-                        .body(ApiResponse.error("Для добавления в корзину необходимо войти в систему"));
+                // Гостевая корзина живет в сессии, без записи в БД
+                CartDto cart = guestCartService.applyBatch(httpRequest, List.of(new CartBatchRequest.Operation(
+                        CartBatchRequest.OperationType.ADD, request.getBouquetId(), request.getQuantity())));
+                return ResponseEntity.ok(ApiResponse.success("Товар добавлен в корзину", cart));
             }
 
             System.out.println("User ID: " + userId);
@@ -74,7 +72,7 @@ public class CartController {
     }
 
     @GetMapping("/count")
-    public ResponseEntity<ApiResponse<Integer>> getCartItemCount(Authentication authentication) {
+    public ResponseEntity<ApiResponse<Integer>> getCartItemCount(Authentication authentication, HttpServletRequest httpRequest) {
         try {
             System.out.println("=== CART COUNT REQUEST ===");
             System.out.println("Authentication: " + (authentication != null ? authentication.getName() : "null"));
@@ -83,8 +81,8 @@ public class CartController {
 
             // Для неавторизованных пользователей возвращаем 0
             if (userId == null) {
-                System.out.println("User not authenticated - returning count 0");
-                return ResponseEntity.ok(ApiResponse.success("Количество товаров в корзине", 0));
+                return ResponseEntity.ok(ApiResponse.success("Количество товаров в корзине",
+                        guestCartService.getCount(httpRequest)));
             }
 
             System.out.println("User ID: " + userId);
@@ -100,18 +98,37 @@ public class CartController {
         }
     }
 
+    // Пачка изменений корзины (кнопки +/-) одним запросом и одной транзакцией
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartDto>> applyBatch(
+            Authentication authentication,
+            HttpServletRequest httpRequest,
+            @Valid @RequestBody CartBatchRequest request) {
+        try {
+            Long userId = getCurrentUserId(authentication);
+
+            // Проверяем авторизацию
+            CartDto cart = userId == null
+                    ? guestCartService.applyBatch(httpRequest, request.getOperations())
+                    : cartService.applyBatch(userId, request.getOperations());
+            return ResponseEntity.ok(ApiResponse.success("Корзина обновлена", cart));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Ошибка при обновлении корзины: " + e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/clear")
-    public ResponseEntity<ApiResponse<Void>> clearCart(Authentication authentication) {
+    public ResponseEntity<ApiResponse<Void>> clearCart(Authentication authentication, HttpServletRequest httpRequest) {
         try {
             Long userId = getCurrentUserId(authentication);
 
             // Проверяем авторизацию
             if (userId == null) {
-                return ResponseEntity.status(401)
-                        .body(ApiResponse.error("Для очистки корзины необходимо войти в систему"));
+                guestCartService.clear(httpRequest);
+            } else {
+                cartService.clearCart(userId);
             }
-
-            cartService.clearCart(userId);
             return ResponseEntity.ok(ApiResponse.success("Корзина очищена"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -123,18 +140,17 @@ public class CartController {
     @PutMapping("/update/{bouquetId}")
     public ResponseEntity<ApiResponse<CartDto>> updateCartItem(
             Authentication authentication,
+            HttpServletRequest httpRequest,
             @PathVariable Long bouquetId,
             @RequestParam Integer quantity) {
         try {
             Long userId = getCurrentUserId(authentication);
 
             // Проверяем авторизацию
-            if (userId == null) {
-                return ResponseEntity.status(401)
-                        .body(ApiResponse.error("Для обновления корзины необходимо войти в систему"));
-            }
-
-            CartDto cart = cartService.updateCartItem(userId, bouquetId, quantity);
+            CartDto cart = userId == null
+                    ? guestCartService.applyBatch(httpRequest, List.of(new CartBatchRequest.Operation(
+                            CartBatchRequest.OperationType.UPDATE, bouquetId, quantity)))
+                    : cartService.updateCartItem(userId, bouquetId, quantity);
             return ResponseEntity.ok(ApiResponse.success("Корзина обновлена", cart));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -145,17 +161,16 @@ public class CartController {
     @DeleteMapping("/remove/{bouquetId}")
     public ResponseEntity<ApiResponse<CartDto>> removeFromCart(
             Authentication authentication,
+            HttpServletRequest httpRequest,
             @PathVariable Long bouquetId) {
         try {
             Long userId = getCurrentUserId(authentication);
 
             // Проверяем авторизацию
-            if (userId == null) {
-                return ResponseEntity.status(401)
-                        .body(ApiResponse.error("Для удаления из корзины необходимо войти в систему"));
-            }
-
-            CartDto cart = cartService.removeFromCart(userId, bouquetId);
+            CartDto cart = userId == null
+                    ? guestCartService.applyBatch(httpRequest, List.of(new CartBatchRequest.Operation(
+                            CartBatchRequest.OperationType.REMOVE, bouquetId, null)))
+                    : cartService.removeFromCart(userId, bouquetId);
             return ResponseEntity.ok(ApiResponse.success("Товар удален из корзины", cart));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -165,17 +180,14 @@ public class CartController {
 
     // ПОСЛЕДНИМ - ОБЩИЙ МАРШРУТ
     @GetMapping
-    public ResponseEntity<ApiResponse<CartDto>> getCart(Authentication authentication) {
+    public ResponseEntity<ApiResponse<CartDto>> getCart(Authentication authentication, HttpServletRequest httpRequest) {
         try {
             Long userId = getCurrentUserId(authentication);
 
             // Проверяем авторизацию
-            if (userId == null) {
-                return ResponseEntity.status(401)
-                        .body(ApiResponse.error("Для просмотра корзины необходимо войти в систему"));
-            }
-
-            CartDto cart = cartService.getCartForUser(userId);
+            CartDto cart = userId == null
+                    ? guestCartService.getCart(httpRequest)
+                    : cartService.getCartForUser(userId);
             return ResponseEntity.ok(ApiResponse.success("Корзина получена", cart));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
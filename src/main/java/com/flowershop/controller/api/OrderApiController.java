@@ -1,14 +1,24 @@
 package com.flowershop.controller.api;
 
 import com.flowershop.dto.ApiResponse;
+import com.flowershop.dto.BulkStatusRequest;
+import com.flowershop.dto.BulkStatusResult;
+import com.flowershop.dto.CursorPage;
 import com.flowershop.dto.OrderDto;
+import com.flowershop.dto.OrderReference;
+import com.flowershop.dto.OrderSummaryView;
 import com.flowershop.entity.Order;
+import com.flowershop.service.CurrentUserResolver;
+import com.flowershop.service.IdempotencyStore;
 import com.flowershop.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -22,18 +32,37 @@ import java.util.stream.Collectors;
 public class OrderApiController {
 
     private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final CurrentUserResolver currentUserResolver;
 
-    public OrderApiController(OrderService orderService) {
+    public OrderApiController(OrderService orderService, IdempotencyStore idempotencyStore,
+                              CurrentUserResolver currentUserResolver) {
         this.orderService = orderService;
+        this.idempotencyStore = idempotencyStore;
+        this.currentUserResolver = currentUserResolver;
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<Order>>> getAllOrders(
+    public ResponseEntity<ApiResponse<Page<OrderSummaryView>>> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders = orderService.findAll(pageable);
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
+        Page<OrderSummaryView> orders = orderService.findSummaries(null, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Заказы получены успешно", orders));
+    }
+
+    // Keyset-режим: ?cursor= для первой страницы, дальше nextCursor из ответа
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryView>>> getOrdersByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+
+        Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null;
+        CursorPage<OrderSummaryView> orders = orderService.scroll(userId, orderStatus, cursor, size, withCount);
         return ResponseEntity.ok(ApiResponse.success("Заказы получены успешно", orders));
     }
 
@@ -50,8 +79,27 @@ public class OrderApiController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Order>> createOrder(@Valid @RequestBody OrderDto orderDto) {
-        Order order = orderService.createOrder(orderDto);
+    public ResponseEntity<ApiResponse<Order>> createOrder(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody OrderDto orderDto,
+            Authentication authentication) {
+        // Пространство ключей - по вошедшему пользователю, а не по userId из тела
+        Long principalId = currentUserResolver.getUserId(authentication);
+        if (idempotencyKey != null && !idempotencyKey.isBlank() && principalId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Idempotency-Key доступен только после входа в систему"));
+        }
+
+        // Повтор с тем же ключом и телом возвращает уже созданный заказ;
+        // конфликты ключа (422, 409 + Retry-After) отдает GlobalExceptionHandler
+        Order[] created = new Order[1];
+        OrderReference reference = idempotencyStore.execute("order-api:" + principalId, idempotencyKey,
+                idempotencyStore.fingerprint(orderDto), () -> {
+                    created[0] = orderService.createOrder(orderDto);
+                    return new OrderReference(created[0].getId(), created[0].getOrderNumber());
+                });
+        // Хранятся только id и номер: при повторе заказ читается заново
+        Order order = created[0] != null ? created[0] : orderService.findById(reference.getId());
         return ResponseEntity.ok(ApiResponse.success("Заказ создан успешно", order));
     }
 
@@ -87,6 +135,24 @@ public class OrderApiController {
         return ResponseEntity.ok(ApiResponse.success("Заказы по статусу", orders));
     }
 
+    // Массовая смена статуса: один запрос на все заказы, результат по каждому
+    @PostMapping("/status/bulk")
+    public ResponseEntity<ApiResponse<BulkStatusResult>> updateOrderStatuses(@Valid @RequestBody BulkStatusRequest request,
+                                                                            Authentication authentication) {
+        if (!currentUserResolver.isAdmin(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Массовая смена статуса доступна только администратору"));
+        }
+
+        try {
+            BulkStatusResult result = orderService.updateOrderStatuses(request.getOrderIds(), request.getStatus());
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Обновлено заказов: " + result.getUpdatedCount() + ", пропущено: " + result.getFailedCount(), result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     // OrderApiController.java - измените этот метод
     @PostMapping("/{id}/status") // Измените с @PutMapping на @PostMapping
     public ResponseEntity<ApiResponse<Void>> updateOrderStatus(@PathVariable Long id,
@@ -127,19 +193,13 @@ public class OrderApiController {
         try {
             System.out.println("=== ORDER STATUS STATS API CALLED ===");
 
-            Map<String, Long> statusCounts = new HashMap<>();
-
-            // Получаем количество заказов по каждому статусу
-            for (Order.OrderStatus status : Order.OrderStatus.values()) {
-                Long count = orderService.countByStatus(status);
-                statusCounts.put(status.name(), count);
-            }
-
+            // Счетчики в памяти, запросов к БД нет
+            Map<Order.OrderStatus, Long> statusCounts = orderService.getStatusCounts();
 
             List<Map<String, Object>> stats = statusCounts.entrySet().stream()
                     .map(entry -> {
                         Map<String, Object> stat = new HashMap<>();
-                        stat.put("status", entry.getKey());
+                        stat.put("status", entry.getKey().name());
                         stat.put("count", entry.getValue());
                         return stat;
                     })
@@ -0,0 +1,99 @@
+package com.flowershop.controller.api;
+
+import com.flowershop.dto.ApiResponse;
+import com.flowershop.dto.OrderDto;
+import com.flowershop.exception.OrderIntakeRejectedException;
+import com.flowershop.service.CurrentUserResolver;
+import com.flowershop.service.IdempotencyStore;
+import com.flowershop.service.OrderIntakeQueue;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.Map;
+
+// Асинхронное оформление: заявка ставится в очередь, статус - опросом или ожиданием (waitMs)
+@RestController
+@RequestMapping("/api/orders/checkout")
+public class OrderIntakeController {
+
+    private static final long MAX_WAIT_MS = 30000;
+
+    private final OrderIntakeQueue orderIntakeQueue;
+    private final IdempotencyStore idempotencyStore;
+    private final CurrentUserResolver currentUserResolver;
+
+    public OrderIntakeController(OrderIntakeQueue orderIntakeQueue,
+                                 IdempotencyStore idempotencyStore,
+                                 CurrentUserResolver currentUserResolver) {
+        this.orderIntakeQueue = orderIntakeQueue;
+        this.idempotencyStore = idempotencyStore;
+        this.currentUserResolver = currentUserResolver;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> submit(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody OrderDto orderDto,
+            Authentication authentication) {
+        Long userId = currentUserResolver.getUserId(authentication);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Для оформления заказа необходимо войти в систему"));
+        }
+
+        try {
+            // Повтор с тем же ключом возвращает ту же заявку; конфликты ключа отдает GlobalExceptionHandler
+            String ticketId = idempotencyStore.execute("order-intake:" + userId, idempotencyKey,
+                    idempotencyStore.fingerprint(orderDto), () -> orderIntakeQueue.submit(userId, orderDto).getId());
+            OrderIntakeQueue.Ticket ticket = orderIntakeQueue.find(ticketId, userId);
+            // Заявка живет меньше ключа: после ее удаления повтор получает только номер заявки
+            Map<String, Object> view = ticket != null ? ticket.toView() : Map.of("ticketId", ticketId);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/checkout/" + ticketId))
+                    .body(ApiResponse.success("Заказ принят в обработку", view));
+        } catch (OrderIntakeRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Статус заявки. С waitMs ответ приходит, как только заявка обработана
+     * (или по истечении ожидания), без удержания потока запроса.
+     */
+    @GetMapping("/{ticketId}")
+    public DeferredResult<ResponseEntity<ApiResponse<Map<String, Object>>>> status(
+            @PathVariable String ticketId,
+            @RequestParam(defaultValue = "0") long waitMs,
+            Authentication authentication) {
+        long timeout = Math.min(Math.max(waitMs, 0), MAX_WAIT_MS);
+        DeferredResult<ResponseEntity<ApiResponse<Map<String, Object>>>> result = new DeferredResult<>(timeout > 0 ? timeout : null);
+
+        OrderIntakeQueue.Ticket ticket = orderIntakeQueue.find(ticketId, currentUserResolver.getUserId(authentication));
+        if (ticket == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Заявка не найдена")));
+            return result;
+        }
+        if (timeout == 0 || ticket.isDone()) {
+            result.setResult(ok(ticket));
+            return result;
+        }
+
+        result.onTimeout(() -> result.setResult(ok(ticket)));
+        ticket.getDone().thenAccept(done -> result.setResult(ok(done)));
+        return result;
+    }
+
+    private static ResponseEntity<ApiResponse<Map<String, Object>>> ok(OrderIntakeQueue.Ticket ticket) {
+        return ResponseEntity.ok(ApiResponse.success("Статус заявки", ticket.toView()));
+    }
+}
@@ -1,11 +1,15 @@
 package com.flowershop.controller.api;
 
+import com.flowershop.service.ReportBundleService;
 import com.flowershop.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,18 +20,38 @@ import java.util.Map;
 public class ReportApiController {
 
     private final ReportService reportService;
+    private final ReportBundleService reportBundleService;
 
-    public ReportApiController(ReportService reportService) {
+    public ReportApiController(ReportService reportService, ReportBundleService reportBundleService) {
         this.reportService = reportService;
+        this.reportBundleService = reportBundleService;
+    }
+
+    // Несколько разделов за один запрос: ?sections=monthly-revenue,bouquet-stats,...
+    @GetMapping("/bundle")
+    public ResponseEntity<Map<String, Object>> getBundle(@RequestParam(required = false) List<String> sections) {
+        List<String> names = sections == null || sections.isEmpty()
+                ? List.copyOf(reportBundleService.getSectionNames())
+                : sections.stream().map(String::trim).filter(name -> !name.isEmpty()).toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", reportBundleService.load(names));
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/monthly-revenue")
-    public ResponseEntity<Map<String, Object>> getMonthlyRevenue() {
+    public ResponseEntity<Map<String, Object>> getMonthlyRevenue(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        // Месяцы в формате yyyy-MM; по умолчанию последние 6 месяцев
+        YearMonth toMonth = parseMonth(to, YearMonth.now());
+        YearMonth fromMonth = parseMonth(from, toMonth.minusMonths(5));
+
         try {
-            System.out.println("=== MONTHLY REVENUE API CALLED ===");
+            System.out.println("=== MONTHLY REVENUE API CALLED: " + fromMonth + " - " + toMonth + " ===");
 
-            // Временная реализация пока метод в сервисе не готов
-            List<Map<String, Object>> data = generateMonthlyRevenueData();
+            List<Map<String, Object>> data = reportService.getMonthlyRevenue(fromMonth, toMonth);
 
             System.out.println("Returning monthly revenue data: " + data.size() + " months");
 
@@ -36,6 +60,8 @@ public class ReportApiController {
             response.put("data", data);
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("Error in monthly-revenue: " + e.getMessage());
             e.printStackTrace();
@@ -139,25 +165,33 @@ public class ReportApiController {
 
 
 
-    // Временный метод для генерации данных
-    private List<Map<String, Object>> generateMonthlyRevenueData() {
-        List<Map<String, Object>> data = new ArrayList<>();
+    @GetMapping("/daily-sales")
+    public ResponseEntity<Map<String, Object>> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        if (endDate == null) endDate = LocalDate.now();
+        if (startDate == null) startDate = endDate.minusDays(29);
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Дата начала позже даты окончания");
+        }
 
-        // Генерируем данные за последние 6 месяцев
-        String[] months = {"Январь 2024", "Февраль 2024", "Март 2024", "Апрель 2024", "Май 2024", "Июнь 2024"};
-        int[] revenues = {15000, 18000, 24000, 19000, 22000, 26000};
-        int[] orders = {25, 30, 40, 32, 38, 45};
+        // Одна строка агрегата на день периода
+        List<Map<String, Object>> data = reportService.getDailySalesSummary(startDate, endDate);
 
-        for (int i = 0; i < months.length; i++) {
-            data.add(Map.of(
-                    "month_year", months[i],
-                    "total_revenue", revenues[i],
-                    "total_orders", orders[i],
-                    "average_order_value", revenues[i] / orders[i]
-            ));
-        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
 
-        return data;
+    private YearMonth parseMonth(String value, YearMonth defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return YearMonth.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Месяц должен быть в формате ГГГГ-ММ: " + value);
+        }
     }
 }
-
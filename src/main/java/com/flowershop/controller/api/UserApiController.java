@@ -3,12 +3,14 @@ package com.flowershop.controller.api;
 import com.flowershop.dto.ApiResponse;
 import com.flowershop.dto.UserExportDto;
 import com.flowershop.dto.UserRegistrationDto;
+import com.flowershop.dto.UserRowView;
 import com.flowershop.entity.User;
 import com.flowershop.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -45,12 +47,12 @@ public class UserApiController {
 
     // Остальные существующие методы остаются БЕЗ ИЗМЕНЕНИЙ
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<User>>> getAllUsers(
+    public ResponseEntity<ApiResponse<Page<UserRowView>>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<User> users = userService.findAll(pageable);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Page<UserRowView> users = userService.findAllRows(pageable);
         return ResponseEntity.ok(ApiResponse.success("Пользователи получены успешно", users));
     }
 
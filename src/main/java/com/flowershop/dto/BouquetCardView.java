@@ -0,0 +1,61 @@
+package com.flowershop.dto;
+
+import com.flowershop.entity.Bouquet;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Карточка букета для списков: только поля витрины и категория плоско
+public class BouquetCardView {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final String imageUrl;
+    private final Boolean inStock;
+    private final Integer stockQuantity;
+    private final Boolean deleted;
+    private final Long categoryId;
+    private final String categoryName;
+    private final LocalDateTime createdAt;
+
+    // Используется в JPQL: SELECT new com.flowershop.dto.BouquetCardView(...)
+    public BouquetCardView(Long id, String name, String description, BigDecimal price, String imageUrl,
+                           Boolean inStock, Integer stockQuantity, Boolean deleted,
+                           Long categoryId, String categoryName, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.inStock = inStock;
+        this.stockQuantity = stockQuantity;
+        this.deleted = deleted;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.createdAt = createdAt;
+    }
+
+    // Для букетов, уже загруженных вместе с категорией (снимок каталога, keyset-окно)
+    public static BouquetCardView from(Bouquet bouquet) {
+        return new BouquetCardView(bouquet.getId(), bouquet.getName(), bouquet.getDescription(),
+                bouquet.getPrice(), bouquet.getImageUrl(), bouquet.getInStock(), bouquet.getStockQuantity(),
+                bouquet.getDeleted(),
+                bouquet.getCategory() != null ? bouquet.getCategory().getId() : null,
+                bouquet.getCategory() != null ? bouquet.getCategory().getName() : null,
+                bouquet.getCreatedAt());
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public BigDecimal getPrice() { return price; }
+    public String getImageUrl() { return imageUrl; }
+    public Boolean getInStock() { return inStock; }
+    public Integer getStockQuantity() { return stockQuantity; }
+    public Boolean getDeleted() { return deleted; }
+    public Long getCategoryId() { return categoryId; }
+    public String getCategoryName() { return categoryName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
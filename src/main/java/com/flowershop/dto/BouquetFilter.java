@@ -0,0 +1,54 @@
+package com.flowershop.dto;
+
+import java.math.BigDecimal;
+
+// Условия фильтра букетов; null в поле означает "не фильтровать"
+public class BouquetFilter {
+    private String search;
+    private Boolean deleted;
+    private Boolean inStock;
+    private Long categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    // Constructors
+    public BouquetFilter() {}
+
+    /**
+     * Статус со страницы управления: active, inactive, out_of_stock.
+     */
+    public void applyStatus(String status) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case "active" -> deleted = false;
+            case "inactive" -> deleted = true;
+            case "out_of_stock" -> inStock = false;
+            default -> { }
+        }
+    }
+
+    public boolean hasSearch() {
+        return search != null && !search.trim().isEmpty();
+    }
+
+    // Getters and Setters
+    public String getSearch() { return search; }
+    public void setSearch(String search) { this.search = search; }
+
+    public Boolean getDeleted() { return deleted; }
+    public void setDeleted(Boolean deleted) { this.deleted = deleted; }
+
+    public Boolean getInStock() { return inStock; }
+    public void setInStock(Boolean inStock) { this.inStock = inStock; }
+
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+}
@@ -0,0 +1,26 @@
+package com.flowershop.dto;
+
+import com.flowershop.entity.Order;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Перевод многих заказов в один статус за один запрос
+public class BulkStatusRequest {
+
+    @NotEmpty(message = "Список заказов пуст")
+    @Size(max = 1000, message = "Не более 1000 заказов за запрос")
+    private List<Long> orderIds = new ArrayList<>();
+
+    @NotNull(message = "Статус обязателен")
+    private Order.OrderStatus status;
+
+    public List<Long> getOrderIds() { return orderIds; }
+    public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+
+    public Order.OrderStatus getStatus() { return status; }
+    public void setStatus(Order.OrderStatus status) { this.status = status; }
+}
@@ -0,0 +1,47 @@
+package com.flowershop.dto;
+
+import com.flowershop.entity.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог массовой смены статуса: результат по каждому запрошенному заказу
+public class BulkStatusResult {
+
+    private final Order.OrderStatus status;
+    private final List<Outcome> outcomes = new ArrayList<>();
+
+    public BulkStatusResult(Order.OrderStatus status) {
+        this.status = status;
+    }
+
+    public Order.OrderStatus getStatus() { return status; }
+    public List<Outcome> getOutcomes() { return outcomes; }
+
+    public long getUpdatedCount() {
+        return outcomes.stream().filter(Outcome::isUpdated).count();
+    }
+
+    public long getFailedCount() {
+        return outcomes.size() - getUpdatedCount();
+    }
+
+    public static class Outcome {
+        private final Long orderId;
+        private final boolean updated;
+        private final Order.OrderStatus previousStatus;
+        private final String message;
+
+        public Outcome(Long orderId, boolean updated, Order.OrderStatus previousStatus, String message) {
+            this.orderId = orderId;
+            this.updated = updated;
+            this.previousStatus = previousStatus;
+            this.message = message;
+        }
+
+        public Long getOrderId() { return orderId; }
+        public boolean isUpdated() { return updated; }
+        public Order.OrderStatus getPreviousStatus() { return previousStatus; }
+        public String getMessage() { return message; }
+    }
+}
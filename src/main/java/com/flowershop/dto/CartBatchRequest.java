@@ -0,0 +1,58 @@
+package com.flowershop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Несколько изменений корзины за один запрос, применяются по порядку
+public class CartBatchRequest {
+
+    public enum OperationType {
+        ADD,    // добавить quantity к текущему количеству
+        UPDATE, // установить quantity; 0 и меньше - удалить
+        REMOVE  // удалить позицию
+    }
+
+    @NotEmpty(message = "Список операций пуст")
+    @Size(max = 100, message = "Не более 100 операций за запрос")
+    @Valid
+    private List<Operation> operations = new ArrayList<>();
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<Operation> operations) {
+        this.operations = operations;
+    }
+
+    public static class Operation {
+
+        @NotNull(message = "Тип операции обязателен")
+        private OperationType type;
+
+        @NotNull(message = "ID букета обязателен")
+        private Long bouquetId;
+
+        private Integer quantity;
+
+        public Operation() {}
+
+        public Operation(OperationType type, Long bouquetId, Integer quantity) {
+            this.type = type;
+            this.bouquetId = bouquetId;
+            this.quantity = quantity;
+        }
+
+        public OperationType getType() { return type; }
+        public void setType(OperationType type) { this.type = type; }
+        public Long getBouquetId() { return bouquetId; }
+        public void setBouquetId(Long bouquetId) { this.bouquetId = bouquetId; }
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+}
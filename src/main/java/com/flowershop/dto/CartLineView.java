@@ -0,0 +1,42 @@
+package com.flowershop.dto;
+
+import java.math.BigDecimal;
+
+// Строка корзины вместе с данными букета: вся корзина читается одним запросом
+public class CartLineView {
+    private final Long cartId;
+    private final BigDecimal cartTotal;
+    private final Long itemId;
+    private final Long bouquetId;
+    private final String bouquetName;
+    private final String bouquetImage;
+    private final Integer quantity;
+    private final BigDecimal unitPrice;
+    private final BigDecimal subtotal;
+
+    // Используется в JPQL: SELECT new com.flowershop.dto.CartLineView(...)
+    public CartLineView(Long cartId, BigDecimal cartTotal, Long itemId, Long bouquetId,
+                        String bouquetName, String bouquetImage, Integer quantity,
+                        BigDecimal unitPrice, BigDecimal subtotal) {
+        this.cartId = cartId;
+        this.cartTotal = cartTotal;
+        this.itemId = itemId;
+        this.bouquetId = bouquetId;
+        this.bouquetName = bouquetName;
+        this.bouquetImage = bouquetImage;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.subtotal = subtotal;
+    }
+
+    // Getters
+    public Long getCartId() { return cartId; }
+    public BigDecimal getCartTotal() { return cartTotal; }
+    public Long getItemId() { return itemId; }
+    public Long getBouquetId() { return bouquetId; }
+    public String getBouquetName() { return bouquetName; }
+    public String getBouquetImage() { return bouquetImage; }
+    public Integer getQuantity() { return quantity; }
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public BigDecimal getSubtotal() { return subtotal; }
+}
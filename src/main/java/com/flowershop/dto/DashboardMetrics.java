@@ -0,0 +1,22 @@
+package com.flowershop.dto;
+
+// Числа для админ-дашборда: итоги из одного запроса, ожидающие заказы - из счетчиков статусов
+public class DashboardMetrics {
+    private final long totalUsers;
+    private final long totalOrders;
+    private final long totalBouquets;
+    private final long pendingOrders;
+
+    public DashboardMetrics(long totalUsers, long totalOrders, long totalBouquets, long pendingOrders) {
+        this.totalUsers = totalUsers;
+        this.totalOrders = totalOrders;
+        this.totalBouquets = totalBouquets;
+        this.pendingOrders = pendingOrders;
+    }
+
+    // Getters
+    public long getTotalUsers() { return totalUsers; }
+    public long getTotalOrders() { return totalOrders; }
+    public long getTotalBouquets() { return totalBouquets; }
+    public long getPendingOrders() { return pendingOrders; }
+}
@@ -0,0 +1,16 @@
+package com.flowershop.dto;
+
+// Id и номер созданного заказа: то, что хранится для повторов по ключу идемпотентности
+public class OrderReference {
+    private final Long id;
+    private final String orderNumber;
+
+    public OrderReference(Long id, String orderNumber) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getOrderNumber() { return orderNumber; }
+}
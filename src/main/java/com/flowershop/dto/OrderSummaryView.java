@@ -0,0 +1,45 @@
+package com.flowershop.dto;
+
+import com.flowershop.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Строка списка заказов: загружается одним запросом без позиций заказа и букетов
+public class OrderSummaryView {
+    private final Long id;
+    private final String orderNumber;
+    private final LocalDateTime createdAt;
+    private final String recipientName;
+    private final BigDecimal totalAmount;
+    private final Order.OrderStatus status;
+    private final Boolean deleted;
+    private final Long userId;
+    private final String username;
+
+    // Используется в JPQL: SELECT new com.flowershop.dto.OrderSummaryView(...)
+    public OrderSummaryView(Long id, String orderNumber, LocalDateTime createdAt, String recipientName,
+                            BigDecimal totalAmount, Order.OrderStatus status, Boolean deleted,
+                            Long userId, String username) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.createdAt = createdAt;
+        this.recipientName = recipientName;
+        this.totalAmount = totalAmount;
+        this.status = status;
+        this.deleted = deleted;
+        this.userId = userId;
+        this.username = username;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getOrderNumber() { return orderNumber; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public String getRecipientName() { return recipientName; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public Order.OrderStatus getStatus() { return status; }
+    public Boolean getDeleted() { return deleted; }
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+}
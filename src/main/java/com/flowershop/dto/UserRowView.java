@@ -0,0 +1,45 @@
+package com.flowershop.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строка таблицы пользователей; роли догружаются одним запросом на всю страницу
+public class UserRowView {
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String phoneNumber;
+    private final Boolean deleted;
+    private final LocalDateTime createdAt;
+    private List<String> roles = new ArrayList<>();
+
+    // Используется в JPQL: SELECT new com.flowershop.dto.UserRowView(...)
+    public UserRowView(Long id, String username, String email, String firstName, String lastName,
+                       String phoneNumber, Boolean deleted, LocalDateTime createdAt) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phoneNumber = phoneNumber;
+        this.deleted = deleted;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getPhoneNumber() { return phoneNumber; }
+    public Boolean getDeleted() { return deleted; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    // Имена ролей: ROLE_USER, ROLE_ADMIN
+    public List<String> getRoles() { return roles; }
+    public void setRoles(List<String> roles) { this.roles = roles; }
+}
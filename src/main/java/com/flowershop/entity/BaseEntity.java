@@ -8,8 +8,14 @@ import java.time.LocalDateTime;
 @MappedSuperclass
 public class BaseEntity {
 
+    public static final String ID_SEQUENCE = "entity_id_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Общая последовательность с шагом 50: id выдаются без INSERT, поэтому вставки идут пачками.
+    // Существующие данные переносит DatabaseInitializer.alignIdSequence()
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_id")
+    @SequenceGenerator(name = "entity_id", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @CreationTimestamp
@@ -10,7 +10,11 @@
     import java.util.List;
 
     @Entity
-    @Table(name = "bouquets")
+    @Table(name = "bouquets", indexes = {
+            // Keyset-пагинация каталога по названию и цене
+            @Index(name = "idx_bouquets_name_id", columnList = "name, id"),
+            @Index(name = "idx_bouquets_price_id", columnList = "price, id")
+    })
     @EntityListeners(JpaAuditListener.class)
     public class Bouquet extends BaseEntity {
 
@@ -7,8 +7,19 @@ import java.util.List;
 
 @Entity
 @Table(name = "carts")
+// Позиции с букетами и их категориями одним запросом - для изменения корзины
+@NamedEntityGraph(
+        name = Cart.WITH_ITEMS_AND_BOUQUETS,
+        attributeNodes = @NamedAttributeNode(value = "items", subgraph = "items"),
+        subgraphs = {
+                @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode(value = "bouquet", subgraph = "bouquet")),
+                @NamedSubgraph(name = "bouquet", attributeNodes = @NamedAttributeNode("category"))
+        }
+)
 public class Cart extends BaseEntity {
 
+    public static final String WITH_ITEMS_AND_BOUQUETS = "Cart.withItemsAndBouquets";
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", unique = true)
     private User user;
@@ -9,9 +9,16 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset-пагинация заказов пользователя и по статусу (ORDER BY id DESC)
+        @Index(name = "idx_orders_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_orders_status_id", columnList = "status, id"),
+        // Отчеты по заказам за период
+        @Index(name = "idx_orders_created_at", columnList = "created_at")
+})
 @EntityListeners(JpaAuditListener.class)
 public class Order extends BaseEntity {
 
@@ -75,10 +82,11 @@ public class Order extends BaseEntity {
         this.deliveryAddress = deliveryAddress;
     }
 
+    // Номер выдает OrderNumberGenerator; здесь - запасной вариант без коллизий по времени
     @PrePersist
     public void generateOrderNumber() {
         if (this.orderNumber == null) {
-            this.orderNumber = "ORD-" + System.currentTimeMillis();
+            this.orderNumber = "ORD-X" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
         }
     }
 
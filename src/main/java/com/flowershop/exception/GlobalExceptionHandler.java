@@ -3,6 +3,7 @@ package com.flowershop.exception;
 import com.flowershop.dto.ApiResponse;
 import org.hibernate.TransactionException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestControllerAdvice
@@ -67,4 +69,23 @@ public class GlobalExceptionHandler {
         ApiResponse<String> response = ApiResponse.error("Некорректные параметры: " + ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ApiResponse<String>> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        return new ResponseEntity<>(ApiResponse.error(ex.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(RequestInProgressException.class)
+    public ResponseEntity<ApiResponse<String>> handleRequestInProgress(RequestInProgressException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    // Нехватка остатков: 409 со списком позиций, чтобы клиент мог поправить корзину
+    @ExceptionHandler(StockReservationException.class)
+    public ResponseEntity<ApiResponse<List<StockReservationException.Shortfall>>> handleStockReservation(
+            StockReservationException ex) {
+        return new ResponseEntity<>(ApiResponse.error(ex.getMessage(), ex.getShortfalls()), HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,9 @@
+package com.flowershop.exception;
+
+// Ключ идемпотентности уже использован с другим телом запроса (422)
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.flowershop.exception;
+
+// Очередь оформления заказов заполнена или останавливается; клиенту стоит повторить через retryAfterSeconds
+public class OrderIntakeRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OrderIntakeRejectedException(long retryAfterSeconds) {
+        this("Слишком много заказов одновременно, повторите через " + retryAfterSeconds + " с", retryAfterSeconds);
+    }
+
+    public OrderIntakeRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
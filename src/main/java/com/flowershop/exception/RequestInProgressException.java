@@ -0,0 +1,9 @@
+package com.flowershop.exception;
+
+// Запрос с тем же ключом идемпотентности еще выполняется (409 + Retry-After)
+public class RequestInProgressException extends RuntimeException {
+
+    public RequestInProgressException(String message) {
+        super(message);
+    }
+}
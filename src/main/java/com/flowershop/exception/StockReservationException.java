@@ -0,0 +1,48 @@
+package com.flowershop.exception;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class StockReservationException extends RuntimeException {
+
+    private final List<Shortfall> shortfalls;
+
+    public StockReservationException(List<Shortfall> shortfalls) {
+        super(shortfalls.stream()
+                .map(Shortfall::toString)
+                .collect(Collectors.joining("; ")));
+        this.shortfalls = shortfalls;
+    }
+
+    public List<Shortfall> getShortfalls() {
+        return shortfalls;
+    }
+
+    // Нехватка по одной позиции заказа
+    public static class Shortfall {
+        private final Long bouquetId;
+        private final String bouquetName;
+        private final Integer requested;
+        private final Integer available;
+
+        public Shortfall(Long bouquetId, String bouquetName, Integer requested, Integer available) {
+            this.bouquetId = bouquetId;
+            this.bouquetName = bouquetName;
+            this.requested = requested;
+            this.available = available;
+        }
+
+        public Long getBouquetId() { return bouquetId; }
+        public String getBouquetName() { return bouquetName; }
+        public Integer getRequested() { return requested; }
+        public Integer getAvailable() { return available; }
+
+        @Override
+        public String toString() {
+            String name = bouquetName != null ? bouquetName : "#" + bouquetId;
+            return "Недостаточно товара: " + name +
+                    ". В наличии: " + available +
+                    ", запрошено: " + requested;
+        }
+    }
+}
@@ -1,20 +1,23 @@
 package com.flowershop.repository;
 
+import com.flowershop.dto.BouquetCardView;
 import com.flowershop.entity.Bouquet;
 import com.flowershop.entity.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BouquetRepository extends JpaRepository<Bouquet, Long> {
+public interface BouquetRepository extends JpaRepository<Bouquet, Long>, JpaSpecificationExecutor<Bouquet> {
 
     List<Bouquet> findByInStockTrue();
     List<Bouquet> findByCategory(Category category);
@@ -22,6 +25,12 @@ public interface BouquetRepository extends JpaRepository<Bouquet, Long> {
     @Query("SELECT b FROM Bouquet b LEFT JOIN FETCH b.category WHERE b.inStock = true AND b.deleted = false")
     Page<Bouquet> findActiveBouquetsWithCategory(Pageable pageable);
 
+    @Query("SELECT b FROM Bouquet b LEFT JOIN FETCH b.category WHERE b.inStock = true AND b.deleted = false")
+    List<Bouquet> findAllActiveWithCategory();
+
+    @Query("SELECT b FROM Bouquet b LEFT JOIN FETCH b.category WHERE b.id IN :ids")
+    List<Bouquet> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT b FROM Bouquet b LEFT JOIN FETCH b.category WHERE b.category.id = :categoryId AND b.inStock = true AND b.deleted = false")
     Page<Bouquet> findByCategoryIdWithCategory(@Param("categoryId") Long categoryId, Pageable pageable);
 
@@ -53,6 +62,19 @@ public interface BouquetRepository extends JpaRepository<Bouquet, Long> {
     @Query("SELECT b FROM Bouquet b LEFT JOIN FETCH b.category")
     Page<Bouquet> findAllWithCategory(Pageable pageable);
 
+    // Карточки для REST-списков: одна выборка с категорией плоско
+    @Query(value = "SELECT new com.flowershop.dto.BouquetCardView(b.id, b.name, b.description, b.price, b.imageUrl, b.inStock, b.stockQuantity, b.deleted, c.id, c.name, b.createdAt) FROM Bouquet b LEFT JOIN b.category c",
+            countQuery = "SELECT COUNT(b) FROM Bouquet b")
+    Page<BouquetCardView> findAllCards(Pageable pageable);
+
+    @Query(value = "SELECT new com.flowershop.dto.BouquetCardView(b.id, b.name, b.description, b.price, b.imageUrl, b.inStock, b.stockQuantity, b.deleted, c.id, c.name, b.createdAt) FROM Bouquet b LEFT JOIN b.category c WHERE b.inStock = true AND b.deleted = false",
+            countQuery = "SELECT COUNT(b) FROM Bouquet b WHERE b.inStock = true AND b.deleted = false")
+    Page<BouquetCardView> findActiveCards(Pageable pageable);
+
+    // Все букеты, включая удалённые, для полнотекстового индекса
+    @Query("SELECT b FROM Bouquet b LEFT JOIN FETCH b.category")
+    List<Bouquet> findAllIncludingDeletedWithCategory();
+
     @Query("SELECT b FROM Bouquet b WHERE b.price BETWEEN :minPrice AND :maxPrice AND b.inStock = true AND b.deleted = false")
     Page<Bouquet> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice, Pageable pageable);
 
@@ -0,0 +1,74 @@
+package com.flowershop.repository;
+
+import com.flowershop.dto.BouquetFilter;
+import com.flowershop.entity.Bouquet;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Условия фильтра букетов как Specification: все предикаты
+ * собираются в один WHERE, поэтому выборка и COUNT считаются в БД.
+ */
+public final class BouquetSpecifications {
+
+    private BouquetSpecifications() {}
+
+    /**
+     * @param matchedIds id букетов, найденных полнотекстовым индексом, по убыванию
+     *                   релевантности; null - искать по search через LIKE.
+     *                   Без сортировки в Pageable выборка идёт в порядке этого списка.
+     */
+    public static Specification<Bouquet> byFilter(BouquetFilter filter, List<Long> matchedIds) {
+        return (root, query, cb) -> {
+            // Категорию подтягиваем в выборке, но не в запросе COUNT
+            Class<?> resultType = query.getResultType();
+            boolean countQuery = resultType == Long.class || resultType == long.class;
+            if (!countQuery) {
+                root.fetch("category", JoinType.LEFT);
+            }
+
+            // Ранг = позиция в списке; сортировка из Pageable заменяет этот порядок
+            if (matchedIds != null && !matchedIds.isEmpty() && !countQuery) {
+                CriteriaBuilder.SimpleCase<Long, Integer> rank = cb.selectCase(root.get("id"));
+                for (int i = 0; i < matchedIds.size(); i++) {
+                    rank.when(matchedIds.get(i), i);
+                }
+                query.orderBy(cb.asc(rank.otherwise(matchedIds.size())));
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (matchedIds != null) {
+                predicates.add(matchedIds.isEmpty() ? cb.disjunction() : root.get("id").in(matchedIds));
+            } else if (filter.hasSearch()) {
+                String pattern = "%" + filter.getSearch().trim().toLowerCase() + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("name")), pattern),
+                        cb.like(cb.lower(root.get("description")), pattern)));
+            }
+
+            if (filter.getDeleted() != null) {
+                predicates.add(cb.equal(root.get("deleted"), filter.getDeleted()));
+            }
+            if (filter.getInStock() != null) {
+                predicates.add(cb.equal(root.get("inStock"), filter.getInStock()));
+            }
+            if (filter.getCategoryId() != null) {
+                predicates.add(cb.equal(root.get("category").get("id"), filter.getCategoryId()));
+            }
+            if (filter.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            }
+            if (filter.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -1,12 +1,15 @@
 // CartRepository.java
 package com.flowershop.repository;
 
+import com.flowershop.dto.CartLineView;
 import com.flowershop.entity.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +19,14 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.user.id = :userId")
     Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
+
+    // Корзина вместе с букетами позиций и их категориями одним запросом
+    @EntityGraph(Cart.WITH_ITEMS_AND_BOUQUETS)
+    @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
+    Optional<Cart> findByUserIdWithItemsAndBouquets(@Param("userId") Long userId);
+
+    // Корзина для показа: строки без сущностей, пустая корзина дает одну строку с null-позицией
+    @Query("SELECT new com.flowershop.dto.CartLineView(c.id, c.totalAmount, ci.id, b.id, b.name, b.imageUrl, ci.quantity, ci.unitPrice, ci.subtotal) " +
+            "FROM Cart c LEFT JOIN c.items ci LEFT JOIN ci.bouquet b WHERE c.user.id = :userId ORDER BY ci.id")
+    List<CartLineView> findLinesByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
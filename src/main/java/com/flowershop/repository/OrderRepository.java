@@ -1,7 +1,9 @@
 package com.flowershop.repository;
 
+import com.flowershop.dto.OrderSummaryView;
 import com.flowershop.entity.Order;
 import com.flowershop.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -44,4 +46,38 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status AND o.deleted = false")
     Long countByStatus(@Param("status") Order.OrderStatus status);
+
+    // [status, count] по всем статусам одним запросом
+    @Query("SELECT o.status, COUNT(o) FROM Order o WHERE o.deleted = false GROUP BY o.status")
+    List<Object[]> countActiveGroupedByStatus();
+
+    long countByUser_IdAndDeletedFalse(Long userId);
+
+    long countByUser_IdAndStatusAndDeletedFalse(Long userId, Order.OrderStatus status);
+
+    // Проекции для списков: одна выборка без позиций заказа и букетов
+    @Query(value = "SELECT new com.flowershop.dto.OrderSummaryView(o.id, o.orderNumber, o.createdAt, o.recipientName, o.totalAmount, o.status, o.deleted, u.id, u.username) FROM Order o LEFT JOIN o.user u",
+            countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderSummaryView> findAllSummaries(Pageable pageable);
+
+    @Query(value = "SELECT new com.flowershop.dto.OrderSummaryView(o.id, o.orderNumber, o.createdAt, o.recipientName, o.totalAmount, o.status, o.deleted, u.id, u.username) FROM Order o LEFT JOIN o.user u WHERE u.id = :userId AND o.deleted = false",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId AND o.deleted = false")
+    Page<OrderSummaryView> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Keyset-пагинация по id (новые первыми); afterId = Long.MAX_VALUE для первой страницы
+    @Query("SELECT new com.flowershop.dto.OrderSummaryView(o.id, o.orderNumber, o.createdAt, o.recipientName, o.totalAmount, o.status, o.deleted, u.id, u.username) FROM Order o LEFT JOIN o.user u WHERE o.id < :afterId ORDER BY o.id DESC")
+    List<OrderSummaryView> scrollSummaries(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.flowershop.dto.OrderSummaryView(o.id, o.orderNumber, o.createdAt, o.recipientName, o.totalAmount, o.status, o.deleted, u.id, u.username) FROM Order o LEFT JOIN o.user u WHERE u.id = :userId AND o.deleted = false AND o.id < :afterId ORDER BY o.id DESC")
+    List<OrderSummaryView> scrollSummariesByUserId(@Param("userId") Long userId,
+                                                   @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.flowershop.dto.OrderSummaryView(o.id, o.orderNumber, o.createdAt, o.recipientName, o.totalAmount, o.status, o.deleted, u.id, u.username) FROM Order o LEFT JOIN o.user u WHERE o.status = :status AND o.deleted = false AND o.id < :afterId ORDER BY o.id DESC")
+    List<OrderSummaryView> scrollSummariesByStatus(@Param("status") Order.OrderStatus status,
+                                                   @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.flowershop.dto.OrderSummaryView(o.id, o.orderNumber, o.createdAt, o.recipientName, o.totalAmount, o.status, o.deleted, u.id, u.username) FROM Order o LEFT JOIN o.user u WHERE u.id = :userId AND o.status = :status AND o.deleted = false AND o.id < :afterId ORDER BY o.id DESC")
+    List<OrderSummaryView> scrollSummariesByUserIdAndStatus(@Param("userId") Long userId,
+                                                            @Param("status") Order.OrderStatus status,
+                                                            @Param("afterId") Long afterId, Limit limit);
 }
\ No newline at end of file
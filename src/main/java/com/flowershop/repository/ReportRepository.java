@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -14,133 +15,145 @@ import java.util.Map;
 @Repository
 public interface ReportRepository extends JpaRepository<Order, Long> {
 
-    // ★★★★ ИСПРАВЛЕННЫЕ МЕТОДЫ - прямые запросы вместо VIEW ★★★★
+    // ★★★★ ОТЧЕТЫ ЧИТАЮТ АГРЕГАТЫ sales_* (см. SalesRollupService) ★★★★
+    // Отчеты за всё время берут готовые итоги sales_*_total, а не суммируют все дни
 
+    // Продажи по дням за период - одна строка на день
     @Query(value = """
-        SELECT 
-            o.order_number as orderNumber,
-            o.created_at as orderDate,
+        SELECT
+            s.day,
+            s.order_count,
+            s.items_quantity,
+            s.revenue,
+            s.completed_count,
+            s.completed_revenue
+        FROM sales_daily s
+        WHERE s.day BETWEEN :startDay AND :endDay
+        ORDER BY s.day
+    """, nativeQuery = true)
+    List<Map<String, Object>> getDailySales(@Param("startDay") LocalDate startDay,
+                                            @Param("endDay") LocalDate endDay);
+
+    // Заказы за период; позиции собираются по каждому заказу, а не общим GROUP BY
+    @Query(value = """
+        SELECT
+            o.id as order_id,
+            o.order_number,
+            o.created_at as order_date,
             u.username as customer,
-            o.total_amount as totalAmount,
+            o.total_amount,
             o.status,
-            COUNT(oi.id) as itemsCount,
-            GROUP_CONCAT(b.name SEPARATOR ', ') as bouquetNames
+            items.items_count,
+            items.bouquet_names
         FROM orders o
-        JOIN users u ON o.user_id = u.id
-        JOIN order_items oi ON o.id = oi.order_id
-        JOIN bouquets b ON oi.bouquet_id = b.id
-        WHERE o.deleted = false
-        GROUP BY o.id, o.order_number, o.created_at, u.username, o.total_amount, o.status
+        LEFT JOIN users u ON o.user_id = u.id
+        LEFT JOIN LATERAL (
+            SELECT COUNT(oi.id) as items_count,
+                   STRING_AGG(b.name, ', ' ORDER BY b.name) as bouquet_names
+            FROM order_items oi
+            JOIN bouquets b ON oi.bouquet_id = b.id
+            WHERE oi.order_id = o.id
+        ) items ON true
+        WHERE o.created_at >= :startDate AND o.created_at < :endDate
+        AND o.deleted = false
         ORDER BY o.created_at DESC
     """, nativeQuery = true)
-    List<Map<String, Object>> getSalesReport();
+    List<Map<String, Object>> getDailySalesReport(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
 
     @Query(value = """
-        SELECT 
+        SELECT
             b.id,
             b.name,
             b.price,
             c.name as category,
-            COUNT(oi.id) as times_ordered,
-            COALESCE(SUM(oi.quantity), 0) as total_quantity,
-            COALESCE(AVG(r.rating), 0) as average_rating
+            COALESCE(s.times_ordered, 0) as times_ordered,
+            COALESCE(s.total_quantity, 0) as total_quantity,
+            COALESCE(s.revenue, 0) as revenue,
+            COALESCE(r.average_rating, 0) as average_rating
         FROM bouquets b
         LEFT JOIN categories c ON b.category_id = c.id
-        LEFT JOIN order_items oi ON b.id = oi.bouquet_id
-        LEFT JOIN reviews r ON b.id = r.bouquet_id AND r.deleted = false
+        LEFT JOIN (
+            SELECT bouquet_id, order_lines as times_ordered, quantity as total_quantity, revenue
+            FROM sales_bouquet_total
+        ) s ON s.bouquet_id = b.id
+        LEFT JOIN (
+            SELECT bouquet_id, AVG(rating) as average_rating
+            FROM reviews
+            WHERE deleted = false
+            GROUP BY bouquet_id
+        ) r ON r.bouquet_id = b.id
         WHERE b.deleted = false
-        GROUP BY b.id, b.name, b.price, c.name
-        ORDER BY total_quantity DESC
+        ORDER BY total_quantity DESC, b.id
     """, nativeQuery = true)
     List<Map<String, Object>> getBouquetStatistics();
 
     @Query(value = """
-        SELECT 
-            u.id,
-            u.username,
-            u.email,
-            u.first_name as firstName,
-            u.last_name as lastName,
-            COUNT(o.id) as total_orders,
-            COALESCE(SUM(o.total_amount), 0) as total_spent,
-            u.created_at as registrationDate
-        FROM users u
-        LEFT JOIN orders o ON u.id = o.user_id AND o.deleted = false
-        WHERE u.deleted = false
-        GROUP BY u.id, u.username, u.email, u.first_name, u.last_name, u.created_at
-        HAVING COUNT(o.id) > 0
-        ORDER BY total_spent DESC
-    """, nativeQuery = true)
-    List<Map<String, Object>> getUserActivityReport();
-
-    // ★★★★ ВРЕМЕННО ЗАКОММЕНТИРУЕМ - они используют PostgreSQL функции ★★★★
-    /*
-    @Query(value = "SELECT * FROM calculate_monthly_revenue(:year, :month)", nativeQuery = true)
-    List<Map<String, Object>> calculateMonthlyRevenue(@Param("year") Integer year, @Param("month") Integer month);
-
-    @Query(value = "SELECT * FROM update_prices_by_category(:categoryId, :percentageChange)", nativeQuery = true)
-    List<Map<String, Object>> updatePricesByCategory(@Param("categoryId") Long categoryId,
-                                                     @Param("percentageChange") BigDecimal percentageChange);
-    */
-
-    // ★★★★ НОВЫЕ МЕТОДЫ ДЛЯ ReportServiceImpl ★★★★
-    @Query(value = """
-        SELECT 
-            o.order_number as orderNumber,
-            o.created_at as orderDate,
-            u.username as customer,
-            o.total_amount as totalAmount,
-            o.status,
-            COUNT(oi.id) as itemsCount,
-            GROUP_CONCAT(b.name SEPARATOR ', ') as bouquetNames
-        FROM orders o
-        JOIN users u ON o.user_id = u.id
-        JOIN order_items oi ON o.id = oi.order_id
-        JOIN bouquets b ON oi.bouquet_id = b.id
-        WHERE o.created_at BETWEEN :startDate AND :endDate
-        AND o.deleted = false
-        GROUP BY o.id, o.order_number, o.created_at, u.username, o.total_amount, o.status
-        ORDER BY o.created_at DESC
-    """, nativeQuery = true)
-    List<Map<String, Object>> getDailySalesReport(@Param("startDate") LocalDateTime startDate,
-                                                  @Param("endDate") LocalDateTime endDate);
-
-    @Query(value = """
-        SELECT 
+        SELECT
             b.id,
             b.name,
             b.price,
             c.name as category,
-            COUNT(oi.id) as times_ordered,
-            COALESCE(SUM(oi.quantity), 0) as total_quantity
-        FROM bouquets b
+            s.times_ordered,
+            s.total_quantity
+        FROM (
+            SELECT bouquet_id, order_lines as times_ordered, quantity as total_quantity
+            FROM sales_bouquet_total
+            WHERE quantity > 0
+        ) s
+        JOIN bouquets b ON b.id = s.bouquet_id
         LEFT JOIN categories c ON b.category_id = c.id
-        LEFT JOIN order_items oi ON b.id = oi.bouquet_id
         WHERE b.deleted = false
-        GROUP BY b.id, b.name, b.price, c.name
-        ORDER BY total_quantity DESC
+        ORDER BY s.total_quantity DESC, b.id
         LIMIT :limit
     """, nativeQuery = true)
     List<Map<String, Object>> getPopularBouquets(@Param("limit") Integer limit);
 
+    // Итоги покупателей хранятся готовыми, поэтому отчет не сканирует заказы
     @Query(value = """
-        SELECT 
+        SELECT
             u.id,
             u.username,
             u.email,
-            u.first_name as firstName,
-            u.last_name as lastName,
-            COUNT(o.id) as total_orders,
-            COALESCE(SUM(o.total_amount), 0) as total_spent,
-            u.created_at as registrationDate
-        FROM users u
-        LEFT JOIN orders o ON u.id = o.user_id AND o.deleted = false
+            u.first_name,
+            u.last_name,
+            s.order_count as total_orders,
+            s.total_spent,
+            s.last_order_at,
+            u.created_at as registration_date
+        FROM sales_customer s
+        JOIN users u ON u.id = s.user_id
         WHERE u.deleted = false
-        GROUP BY u.id, u.username, u.email, u.first_name, u.last_name, u.created_at
-        HAVING COUNT(o.id) > 0
-        ORDER BY total_spent DESC
+        AND s.order_count > 0
+        ORDER BY s.total_spent DESC
     """, nativeQuery = true)
-    List<Map<String, Object>> getCustomerLoyaltyReport();
+    List<Map<String, Object>> getUserActivityReport();
+
+    // Выручка завершенных заказов по месяцам; месяцы без продаж идут с нулями
+    @Query(value = """
+        SELECT
+            to_char(m.month, 'YYYY-MM') as month_year,
+            COALESCE(s.completed_revenue, 0) as total_revenue,
+            COALESCE(s.completed_count, 0) as total_orders,
+            CASE
+                WHEN COALESCE(s.completed_count, 0) > 0 THEN ROUND(s.completed_revenue / s.completed_count, 2)
+                ELSE 0
+            END as average_order_value,
+            COALESCE(s.order_count, 0) as placed_orders,
+            COALESCE(s.revenue, 0) as placed_revenue
+        FROM generate_series(CAST(:fromMonth AS date), CAST(:toMonth AS date), interval '1 month') as m(month)
+        LEFT JOIN sales_monthly s ON s.month = CAST(m.month AS date)
+        ORDER BY m.month
+    """, nativeQuery = true)
+    List<Map<String, Object>> getMonthlyRevenue(@Param("fromMonth") LocalDate fromMonth,
+                                                @Param("toMonth") LocalDate toMonth);
+
+    // ★★★★ ВРЕМЕННО ЗАКОММЕНТИРУЕМ - они используют PostgreSQL функции ★★★★
+    /*
+    @Query(value = "SELECT * FROM update_prices_by_category(:categoryId, :percentageChange)", nativeQuery = true)
+    List<Map<String, Object>> updatePricesByCategory(@Param("categoryId") Long categoryId,
+                                                     @Param("percentageChange") BigDecimal percentageChange);
+    */
 
     // Методы для статистики дашборда
     @Query("SELECT COUNT(u) FROM User u WHERE u.deleted = false")
@@ -149,34 +162,28 @@ public interface ReportRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COUNT(o) FROM Order o WHERE o.deleted = false")
     Long getTotalOrders();
 
-    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.deleted = false AND o.status = 'COMPLETED'")
+    @Query(value = "SELECT COALESCE((SELECT completed_revenue FROM sales_total WHERE id = 1), 0)", nativeQuery = true)
     BigDecimal getTotalRevenue();
 
     @Query("SELECT COUNT(o) FROM Order o WHERE o.deleted = false AND o.status = 'PENDING'")
     Long getPendingOrdersCount();
 
     @Query(value = """
-        SELECT COALESCE(SUM(total_amount), 0) 
-        FROM orders 
-        WHERE deleted = false 
-        AND status = 'COMPLETED'
-        AND EXTRACT(YEAR FROM created_at) = EXTRACT(YEAR FROM CURRENT_DATE)
-        AND EXTRACT(MONTH FROM created_at) = EXTRACT(MONTH FROM CURRENT_DATE)
+        SELECT COALESCE(SUM(completed_revenue), 0)
+        FROM sales_daily
+        WHERE day >= CAST(date_trunc('month', CURRENT_DATE) AS date)
     """, nativeQuery = true)
     BigDecimal getCurrentMonthRevenue();
 
     // ★★★★ ИСПРАВЛЕННЫЙ МЕТОД - возвращает List<Object[]> ★★★★
     @Query(value = """
-        SELECT 
+        SELECT
             c.name as categoryName,
-            COUNT(oi.id) as orderCount
+            COALESCE(s.order_lines, 0) as orderCount
         FROM categories c
-        LEFT JOIN bouquets b ON c.id = b.category_id AND b.deleted = false
-        LEFT JOIN order_items oi ON b.id = oi.bouquet_id
-        LEFT JOIN orders o ON oi.order_id = o.id AND o.deleted = false
+        LEFT JOIN sales_category_total s ON s.category_id = c.id
         WHERE c.deleted = false
-        GROUP BY c.id, c.name
-        ORDER BY orderCount DESC
+        ORDER BY orderCount DESC, c.id
         LIMIT :limit
     """, nativeQuery = true)
     List<Object[]> getPopularCategories(@Param("limit") Integer limit);
@@ -1,6 +1,8 @@
 package com.flowershop.repository;
 
+import com.flowershop.dto.UserRowView;
 import com.flowershop.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +18,10 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
+
+    // Только id, без загрузки ролей
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
@@ -38,4 +45,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :role")
     Page<User> findByRole(@Param("role") String role, Pageable pageable);
+
+    // Проекции для таблицы пользователей
+    @Query(value = "SELECT new com.flowershop.dto.UserRowView(u.id, u.username, u.email, u.firstName, u.lastName, u.phoneNumber, u.deleted, u.createdAt) FROM User u",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserRowView> findAllRows(Pageable pageable);
+
+    // Роли всей страницы одним запросом: [userId, RoleName]
+    @Query("SELECT u.id, r.name FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRoleNamesByUserIds(@Param("ids") Collection<Long> ids);
+
+    // Keyset-пагинация по id; afterId = 0 для первой страницы
+    @Query("SELECT new com.flowershop.dto.UserRowView(u.id, u.username, u.email, u.firstName, u.lastName, u.phoneNumber, u.deleted, u.createdAt) FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserRowView> scrollRows(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.flowershop.dto.UserRowView(u.id, u.username, u.email, u.firstName, u.lastName, u.phoneNumber, u.deleted, u.createdAt) FROM User u WHERE (" +
+            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND u.id > :afterId ORDER BY u.id")
+    List<UserRowView> scrollRowsBySearch(@Param("search") String search,
+                                         @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE " +
+            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))")
+    long countBySearch(@Param("search") String search);
 }
\ No newline at end of file
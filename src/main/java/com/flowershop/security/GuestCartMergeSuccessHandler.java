@@ -0,0 +1,38 @@
+package com.flowershop.security;
+
+import com.flowershop.service.CurrentUserResolver;
+import com.flowershop.service.GuestCartService;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * После входа переносит гостевую корзину из сессии в корзину пользователя
+ * и отправляет на главную, как раньше делал defaultSuccessUrl("/home", true).
+ */
+@Component
+public class GuestCartMergeSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    private final GuestCartService guestCartService;
+    private final CurrentUserResolver currentUserResolver;
+
+    public GuestCartMergeSuccessHandler(GuestCartService guestCartService,
+                                        CurrentUserResolver currentUserResolver) {
+        super("/home");
+        setAlwaysUseDefaultTargetUrl(true);
+        this.guestCartService = guestCartService;
+        this.currentUserResolver = currentUserResolver;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        guestCartService.mergeInto(request, currentUserResolver.getUserId(authentication));
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
@@ -0,0 +1,29 @@
+package com.flowershop.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal с id пользователя: id и роли определяются один раз при входе,
+ * поэтому запросам не нужно загружать пользователя по имени.
+ */
+public class ShopUserDetails extends User {
+
+    private final Long id;
+
+    public ShopUserDetails(Long id, String username, String password,
+                           Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isAdmin() {
+        return getAuthorities().stream().anyMatch(auth -> "ROLE_ADMIN".equals(auth.getAuthority()));
+    }
+}
@@ -0,0 +1,154 @@
+package com.flowershop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE-канал для админских страниц. Событие формируется один раз
+ * и рассылается всем подключенным админам, поэтому нагрузка зависит
+ * от числа бизнес-событий, а не от числа вкладок и частоты опроса.
+ */
+@Component
+public class AdminEventStream {
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final AtomicLong eventId = new AtomicLong();
+    private final long timeoutMs;
+    // Место занимается до создания подключения и освобождается ровно один раз при его закрытии
+    private final Semaphore slots;
+    // Рассылка идет в своем потоке: медленный клиент не задерживает коммит заказа
+    private final ScheduledExecutorService sender;
+
+    public AdminEventStream(@Value("${admin.stream.timeout-ms:1800000}") long timeoutMs,
+                            @Value("${admin.stream.max-clients:100}") int maxClients,
+                            @Value("${admin.stream.heartbeat-seconds:25}") long heartbeatSeconds) {
+        this.timeoutMs = timeoutMs;
+        this.slots = new Semaphore(maxClients);
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-event-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Комментарий-пинг держит соединение через прокси и выявляет отключившихся
+        sender.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Новое подключение; первым событием уходит снимок текущих значений.
+     */
+    public SseEmitter subscribe(String snapshotName, Map<String, Object> snapshot) {
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("Слишком много подключений к потоку событий");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(emitter);
+        emitter.onCompletion(() -> close(client));
+        emitter.onTimeout(() -> close(client));
+        emitter.onError(e -> close(client));
+
+        try {
+            emitter.send(event(snapshotName, snapshot));
+        } catch (IOException e) {
+            close(client);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        clients.add(client);
+        // Подключение могло закрыться, пока уходил снимок
+        if (client.closed.get()) {
+            clients.remove(client);
+        }
+        return emitter;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Ставит событие в очередь рассылки. Без подключений ничего не делает.
+     */
+    public void publish(String name, Map<String, Object> data) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        try {
+            sender.execute(() -> broadcast(name, data));
+        } catch (Exception e) {
+            System.err.println("Failed to publish admin event " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void broadcast(String name, Map<String, Object> data) {
+        // Событие собирается один раз для всех получателей
+        Set<ResponseBodyEmitter.DataWithMediaType> payload = event(name, data).build();
+        for (Client client : clients) {
+            try {
+                client.emitter.send(payload);
+            } catch (Exception e) {
+                close(client);
+                client.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Client client : clients) {
+            try {
+                client.emitter.send(SseEmitter.event().comment("ping"));
+            } catch (Exception e) {
+                close(client);
+                client.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder event(String name, Map<String, Object> data) {
+        return SseEmitter.event()
+                .id(String.valueOf(eventId.incrementAndGet()))
+                .name(name)
+                .data(data, MediaType.APPLICATION_JSON);
+    }
+
+    private void close(Client client) {
+        if (client.closed.compareAndSet(false, true)) {
+            clients.remove(client);
+            slots.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Client client : clients) {
+            close(client);
+            client.emitter.complete();
+        }
+    }
+
+    private static final class Client {
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.flowershop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowershop.entity.AuditLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая запись аудита: события складываются в ограниченную очередь
+ * и вставляются в audit_log пачками одним многострочным INSERT.
+ * Что не удалось записать при остановке, сохраняется в spool-файл
+ * и дописывается в БД при следующем запуске.
+ */
+@Component
+public class AuditLogWriter {
+
+    // Что делать, если очередь заполнена и место не освободилось за offer-timeout
+    public enum OverflowPolicy {
+        CALLER_RUNS, // записать в потоке вызывающего
+        DROP         // отбросить событие
+    }
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_log (table_name, record_id, action, old_data, new_data, changed_by, changed_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+
+    // Отброшенные события печатаются одной строкой не чаще этого интервала
+    private static final long DROP_REPORT_INTERVAL_MS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<AuditLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spoolFile;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong droppedUnreported = new AtomicLong();
+    private final AtomicLong lastDropReport = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          ObjectMapper objectMapper,
+                          @Value("${audit.queue.capacity:10000}") int capacity,
+                          @Value("${audit.batch.size:200}") int batchSize,
+                          @Value("${audit.flush-interval-ms:500}") long flushIntervalMs,
+                          @Value("${audit.queue.offer-timeout-ms:50}") long offerTimeoutMs,
+                          @Value("${audit.queue.overflow-policy:CALLER_RUNS}") OverflowPolicy overflowPolicy,
+                          @Value("${audit.spool-file:audit-spool.jsonl}") String spoolFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.overflowPolicy = overflowPolicy;
+        this.spoolFile = Paths.get(spoolFile);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Ставит события в очередь. Вызывается после коммита бизнес-транзакции.
+     */
+    public void submit(List<AuditLog> events) {
+        for (AuditLog event : events) {
+            boolean accepted = false;
+            if (running) {
+                try {
+                    accepted = queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (!accepted) {
+                overflow(event);
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void overflow(AuditLog event) {
+        if (running && overflowPolicy == OverflowPolicy.DROP) {
+            dropped.incrementAndGet();
+            droppedUnreported.incrementAndGet();
+            reportDrops(false);
+            return;
+        }
+        // Очередь переполнена или writer уже остановлен - пишем сами
+        writeOrSpool(List.of(event));
+    }
+
+    // При потоке отказов - одна строка с количеством за интервал, а не строка на событие
+    private void reportDrops(boolean force) {
+        if (droppedUnreported.get() == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastDropReport.get();
+        if (!force && now - last < DROP_REPORT_INTERVAL_MS) {
+            return;
+        }
+        if (!lastDropReport.compareAndSet(last, now)) {
+            return;
+        }
+        long count = droppedUnreported.getAndSet(0);
+        if (count > 0) {
+            System.err.println("Audit queue is full: " + count + " events dropped (total dropped: "
+                    + dropped.get() + ")");
+        }
+    }
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            reportDrops(false);
+            try {
+                AuditLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeOrSpool(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } catch (Exception e) {
+                System.err.println("Audit writer error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeOrSpool(List<AuditLog> batch) {
+        try {
+            insert(batch);
+        } catch (Exception e) {
+            System.err.println("Failed to write audit batch of " + batch.size() + ": " + e.getMessage());
+            // Одна плохая строка не должна уносить всю пачку в spool
+            List<AuditLog> failed = new ArrayList<>();
+            for (AuditLog event : batch) {
+                try {
+                    insert(List.of(event));
+                } catch (Exception rowError) {
+                    failed.add(event);
+                }
+            }
+            if (!failed.isEmpty()) {
+                spool(failed);
+            }
+        }
+    }
+
+    // Один запрос на всю пачку вместо INSERT на каждое событие
+    private void insert(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> params = new ArrayList<>(batch.size() * 7);
+        for (int i = 0; i < batch.size(); i++) {
+            AuditLog event = batch.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            params.add(event.getTableName());
+            params.add(event.getRecordId());
+            params.add(event.getAction());
+            params.add(event.getOldData());
+            params.add(event.getNewData());
+            params.add(event.getChangedBy());
+            params.add(Timestamp.valueOf(event.getChangedAt()));
+        }
+        jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+
+    private synchronized void spool(List<AuditLog> events) {
+        try (BufferedWriter writer = Files.newBufferedWriter(spoolFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (AuditLog event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to spool " + events.size() + " audit events: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Дописывает в БД события, сохранённые в spool-файл при прошлой остановке.
+     * После каждой записанной пачки в файле остаются только невставленные строки,
+     * поэтому сбой посередине не повторяет уже записанные события.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void replaySpool() {
+        if (!Files.exists(spoolFile)) {
+            return;
+        }
+        int replayed = 0;
+        try {
+            List<String> lines = new ArrayList<>();
+            List<AuditLog> events = new ArrayList<>();
+            for (String line : Files.readAllLines(spoolFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                    events.add(objectMapper.readValue(line, AuditLog.class));
+                }
+            }
+            for (int from = 0; from < events.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, events.size());
+                insert(events.subList(from, to));
+                replayed = to;
+                rewriteSpool(lines.subList(to, lines.size()));
+            }
+            System.out.println("Audit spool replayed: " + events.size() + " events");
+        } catch (Exception e) {
+            System.err.println("Failed to replay audit spool after " + replayed + " events: " + e.getMessage());
+        }
+    }
+
+    // Новое содержимое пишется во временный файл и заменяет spool одним переименованием
+    private void rewriteSpool(List<String> remaining) throws IOException {
+        if (remaining.isEmpty()) {
+            Files.delete(spoolFile);
+            return;
+        }
+        Path temp = spoolFile.resolveSibling(spoolFile.getFileName() + ".tmp");
+        Files.write(temp, remaining, StandardCharsets.UTF_8);
+        Files.move(temp, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Всё, что writer не успел записать, уходит в БД или в spool-файл
+        List<AuditLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeOrSpool(remaining);
+        }
+        reportDrops(true);
+    }
+}
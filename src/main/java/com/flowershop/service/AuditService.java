@@ -6,8 +6,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +18,15 @@ import java.util.Optional;
 @Transactional
 public class AuditService {
 
+    // Ключ списка событий текущей транзакции
+    private static final Object PENDING_EVENTS_KEY = new Object();
+
     private final AuditRepository auditRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    public AuditService(AuditRepository auditRepository) {
+    public AuditService(AuditRepository auditRepository, AuditLogWriter auditLogWriter) {
         this.auditRepository = auditRepository;
+        this.auditLogWriter = auditLogWriter;
     }
 
     @Transactional(readOnly = true)
@@ -51,27 +59,55 @@ public class AuditService {
         return auditRepository.findAll(pageable);
     }
 
+    /**
+     * Регистрирует событие аудита. Запись в БД идёт в фоне после коммита
+     * текущей транзакции; при откате события отбрасываются вместе с ней.
+     */
     public void logAction(String tableName, Long recordId, String action,
                           String oldData, String newData, String changedBy) {
-        try {
-            AuditLog auditLog = new AuditLog();
-            auditLog.setTableName(tableName);
-            auditLog.setRecordId(recordId);
-            auditLog.setAction(action);
+        AuditLog auditLog = new AuditLog();
+        auditLog.setTableName(tableName);
+        auditLog.setRecordId(recordId);
+        auditLog.setAction(action);
+        auditLog.setChangedBy(changedBy);
+        auditLog.setChangedAt(LocalDateTime.now());
 
+        try {
             // Преобразуем данные в JSON формат
             auditLog.setOldData(convertToJson(oldData));
             auditLog.setNewData(convertToJson(newData));
-
-            auditLog.setChangedBy(changedBy);
-
-            auditRepository.save(auditLog);
-            System.out.println("Audit logged: " + tableName + " " + action + " by " + changedBy);
         } catch (Exception e) {
-            System.err.println("Failed to log audit: " + e.getMessage());
+            System.err.println("Failed to convert audit data: " + e.getMessage());
             // Создаем запись без JSON данных в случае ошибки
-            logSimpleAction(tableName, recordId, action, changedBy);
+            auditLog.setOldData(null);
+            auditLog.setNewData(null);
         }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            auditLogWriter.submit(List.of(auditLog));
+            return;
+        }
+
+        // Все события транзакции копятся в одном списке и уходят в очередь одним вызовом
+        @SuppressWarnings("unchecked")
+        List<AuditLog> pending = (List<AuditLog>) TransactionSynchronizationManager.getResource(PENDING_EVENTS_KEY);
+        if (pending == null) {
+            List<AuditLog> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(PENDING_EVENTS_KEY, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditLogWriter.submit(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_EVENTS_KEY);
+                }
+            });
+            pending = events;
+        }
+        pending.add(auditLog);
     }
 
     private String convertToJson(String data) {
@@ -101,21 +137,4 @@ public class AuditService {
                 .replace("\t", "\\t");
     }
 
-    private void logSimpleAction(String tableName, Long recordId, String action, String changedBy) {
-        try {
-            AuditLog auditLog = new AuditLog();
-            auditLog.setTableName(tableName);
-            auditLog.setRecordId(recordId);
-            auditLog.setAction(action);
-            auditLog.setOldData(null);
-            auditLog.setNewData(null);
-            auditLog.setChangedBy(changedBy);
-
-            auditRepository.save(auditLog);
-            System.out.println("Simple audit logged: " + tableName + " " + action + " by " + changedBy);
-        } catch (Exception e) {
-            System.err.println("Failed to log simple audit: " + e.getMessage());
-        }
-    }
-
 }
\ No newline at end of file
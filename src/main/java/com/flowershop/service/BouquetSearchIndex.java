@@ -0,0 +1,420 @@
+package com.flowershop.service;
+
+import com.flowershop.dto.BouquetFilter;
+import com.flowershop.entity.Bouquet;
+import com.flowershop.entity.Category;
+import com.flowershop.repository.BouquetRepository;
+import com.flowershop.util.BouquetSnapshotUtil;
+import com.flowershop.util.RussianStemmer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * Инвертированный индекс для полнотекстового поиска букетов в памяти.
+ * Индексируются название, описание и название категории; слова приводятся
+ * к основе русским стеммером, поэтому "розы" находит "розами" и "роза".
+ * Индекс содержит все букеты (в т.ч. удалённые), фильтры применяются при поиске.
+ */
+@Service
+public class BouquetSearchIndex {
+
+    // Веса полей при ранжировании
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    // Совпадение по началу слова ценится меньше точного совпадения основы
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float STEM_PREFIX_FACTOR = 0.4f;
+
+    // Ограничение на разворот префикса, чтобы короткий запрос не обходил весь словарь
+    private static final int MAX_PREFIX_TERMS = 200;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "на", "с", "со", "для", "из", "по", "к", "ко", "о", "об", "от", "у",
+            "за", "до", "не", "а", "или", "the", "and", "of"
+    );
+
+    private final BouquetRepository bouquetRepository;
+
+    private final Object writeLock = new Object();
+    private volatile Index index;
+
+    public BouquetSearchIndex(BouquetRepository bouquetRepository) {
+        this.bouquetRepository = bouquetRepository;
+    }
+
+    /**
+     * Страница результатов поиска.
+     * Без сортировки в Pageable результаты идут по релевантности.
+     * Возвращает null, если сортировку нельзя выполнить в памяти
+     * или индекс не удалось построить — тогда вызывающий идёт в БД.
+     *
+     * @param categoryId   фильтр по категории или null
+     * @param activeOnly   только букеты в наличии и не удалённые
+     */
+    public Page<Bouquet> search(String query, Long categoryId, boolean activeOnly, Pageable pageable) {
+        Comparator<Bouquet> comparator = null;
+        if (pageable.getSort().isSorted()) {
+            comparator = BouquetSnapshotUtil.comparatorFor(pageable.getSort());
+            if (comparator == null) {
+                return null;
+            }
+        }
+
+        List<Bouquet> ranked = search(query, categoryId, activeOnly);
+        if (ranked == null) {
+            return null;
+        }
+        if (comparator != null) {
+            ranked.sort(comparator);
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(ranked);
+        }
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        return new PageImpl<>(new ArrayList<>(ranked.subList(from, to)), pageable, ranked.size());
+    }
+
+    /**
+     * Все совпадения по убыванию релевантности, или null если индекс недоступен.
+     * Букет попадает в результат, только если совпали все слова запроса.
+     */
+    public List<Bouquet> search(String query, Long categoryId, boolean activeOnly) {
+        return search(query, bouquet -> matches(bouquet, categoryId, activeOnly));
+    }
+
+    /**
+     * Совпадения, прошедшие все условия фильтра (категория, статус, цена),
+     * по убыванию релевантности, или null если индекс недоступен.
+     */
+    public List<Bouquet> search(String query, BouquetFilter filter) {
+        return search(query, bouquet -> matches(bouquet, filter));
+    }
+
+    private List<Bouquet> search(String query, Predicate<Bouquet> filter) {
+        Index current = index();
+        if (current == null) {
+            return null;
+        }
+
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Float> scores = null;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            Map<Long, Float> termScores = current.match(token);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Float> intersection = new HashMap<>();
+                for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                    Float score = termScores.get(entry.getKey());
+                    if (score != null) {
+                        intersection.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                scores = intersection;
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Map.Entry<Bouquet, Float>> hits = new ArrayList<>();
+        for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+            Document document = current.documents.get(entry.getKey());
+            if (document != null && filter.test(document.bouquet)) {
+                hits.add(Map.entry(document.bouquet, entry.getValue()));
+            }
+        }
+
+        hits.sort(Map.Entry.<Bouquet, Float>comparingByValue().reversed()
+                .thenComparing(e -> e.getKey().getName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(e -> e.getKey().getId()));
+
+        List<Bouquet> result = new ArrayList<>(hits.size());
+        for (Map.Entry<Bouquet, Float> hit : hits) {
+            result.add(hit.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Переиндексирует букет после коммита текущей транзакции.
+     * Копия снимается сразу, пока сущность и категория загружены.
+     */
+    public void index(Bouquet bouquet) {
+        Bouquet copy = BouquetSnapshotUtil.detachedCopy(bouquet,
+                BouquetSnapshotUtil.detachedCopy(bouquet.getCategory()));
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                Index current = index;
+                if (current != null) {
+                    current.put(copy);
+                }
+            }
+        });
+    }
+
+    /**
+     * Переиндексирует букеты категории после её переименования.
+     */
+    public void reindexCategory(Category category) {
+        Category copy = BouquetSnapshotUtil.detachedCopy(category);
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                Index current = index;
+                if (current == null) {
+                    return;
+                }
+                for (Document document : new ArrayList<>(current.documents.values())) {
+                    Category old = document.bouquet.getCategory();
+                    if (old != null && copy.getId().equals(old.getId())) {
+                        current.put(BouquetSnapshotUtil.detachedCopy(document.bouquet, copy));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Применяет новые остатки после коммита; текст не меняется, поэтому без переразбора.
+     *
+     * @param remaining bouquetId -> остаток после изменения
+     */
+    public void applyStock(Map<Long, Integer> remaining) {
+        if (remaining == null || remaining.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> copy = new HashMap<>(remaining);
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                Index current = index;
+                if (current == null) {
+                    return;
+                }
+                for (Map.Entry<Long, Integer> entry : copy.entrySet()) {
+                    current.documents.computeIfPresent(entry.getKey(), (id, document) -> {
+                        Bouquet updated = BouquetSnapshotUtil.detachedCopy(
+                                document.bouquet, document.bouquet.getCategory());
+                        updated.setStockQuantity(entry.getValue());
+                        updated.setInStock(entry.getValue() > 0);
+                        return new Document(updated, document.terms);
+                    });
+                }
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Индекс строится один раз при первом поиске, дальше обновляется точечно
+    private Index index() {
+        Index current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (index != null) {
+                return index;
+            }
+            try {
+                Index built = new Index();
+                Map<Long, Category> categories = new HashMap<>();
+                for (Bouquet bouquet : bouquetRepository.findAllIncludingDeletedWithCategory()) {
+                    Category category = bouquet.getCategory() == null ? null
+                            : categories.computeIfAbsent(bouquet.getCategory().getId(),
+                                    id -> BouquetSnapshotUtil.detachedCopy(bouquet.getCategory()));
+                    built.put(BouquetSnapshotUtil.detachedCopy(bouquet, category));
+                }
+                index = built;
+                System.out.println("Bouquet search index built: " + built.documents.size()
+                        + " bouquets, " + built.postings.size() + " terms");
+                return built;
+            } catch (Exception e) {
+                System.out.println("Bouquet search index build failed: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static String stem(String token) {
+        return isCyrillic(token) ? RussianStemmer.stem(token) : token;
+    }
+
+    private static boolean isCyrillic(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.UnicodeBlock.of(token.charAt(i)) != Character.UnicodeBlock.CYRILLIC) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Document {
+        private final Bouquet bouquet;
+        private final Set<String> terms;
+
+        private Document(Bouquet bouquet, Set<String> terms) {
+            this.bouquet = bouquet;
+            this.terms = terms;
+        }
+
+    }
+
+    private static boolean matches(Bouquet bouquet, Long categoryId, boolean activeOnly) {
+        if (activeOnly && (Boolean.TRUE.equals(bouquet.getDeleted())
+                || !Boolean.TRUE.equals(bouquet.getInStock()))) {
+            return false;
+        }
+        return categoryId == null || (bouquet.getCategory() != null
+                && categoryId.equals(bouquet.getCategory().getId()));
+    }
+
+    // Те же условия, что BouquetSpecifications.byFilter, кроме текста запроса
+    private static boolean matches(Bouquet bouquet, BouquetFilter filter) {
+        if (filter.getDeleted() != null && filter.getDeleted() != Boolean.TRUE.equals(bouquet.getDeleted())) {
+            return false;
+        }
+        if (filter.getInStock() != null && filter.getInStock() != Boolean.TRUE.equals(bouquet.getInStock())) {
+            return false;
+        }
+        if (!matches(bouquet, filter.getCategoryId(), false)) {
+            return false;
+        }
+        BigDecimal price = bouquet.getPrice();
+        if (filter.getMinPrice() != null && (price == null || price.compareTo(filter.getMinPrice()) < 0)) {
+            return false;
+        }
+        return filter.getMaxPrice() == null || (price != null && price.compareTo(filter.getMaxPrice()) <= 0);
+    }
+
+    private static final class Index {
+        // основа слова -> (bouquetId -> вес); отсортировано для поиска по префиксу
+        private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+        private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+        private void put(Bouquet bouquet) {
+            Document previous = documents.get(bouquet.getId());
+            if (previous != null) {
+                for (String term : previous.terms) {
+                    postings.computeIfPresent(term, (t, docs) -> {
+                        docs.remove(bouquet.getId());
+                        return docs.isEmpty() ? null : docs;
+                    });
+                }
+            }
+
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, bouquet.getName(), NAME_WEIGHT);
+            addField(weights, bouquet.getDescription(), DESCRIPTION_WEIGHT);
+            if (bouquet.getCategory() != null) {
+                addField(weights, bouquet.getCategory().getName(), CATEGORY_WEIGHT);
+            }
+
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new ConcurrentHashMap<>())
+                        .put(bouquet.getId(), entry.getValue());
+            }
+            documents.put(bouquet.getId(), new Document(bouquet, weights.keySet()));
+        }
+
+        // Вес слова в букете - сумма весов полей, в которых оно встречается
+        private static void addField(Map<String, Float> weights, String text, float weight) {
+            Set<String> seen = new LinkedHashSet<>();
+            for (String token : tokenize(text)) {
+                seen.add(stem(token));
+            }
+            for (String term : seen) {
+                weights.merge(term, weight, Float::sum);
+            }
+        }
+
+        private Map<Long, Float> match(String token) {
+            Map<Long, Float> scores = new HashMap<>();
+            String stem = stem(token);
+
+            Map<Long, Float> exact = postings.get(stem);
+            if (exact != null) {
+                exact.forEach((id, weight) -> scores.merge(id, weight, Math::max));
+            }
+
+            // Частично введённое слово: "пио" -> "пион"
+            if (token.length() >= 2) {
+                matchPrefix(token, PREFIX_FACTOR, scores);
+            }
+            if (stem.length() >= 3 && !stem.equals(token)) {
+                matchPrefix(stem, STEM_PREFIX_FACTOR, scores);
+            }
+            return scores;
+        }
+
+        private void matchPrefix(String prefix, float factor, Map<Long, Float> scores) {
+            NavigableMap<String, Map<Long, Float>> range =
+                    postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            int expanded = 0;
+            for (Map<Long, Float> docs : range.values()) {
+                docs.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+                if (++expanded >= MAX_PREFIX_TERMS) {
+                    break;
+                }
+            }
+        }
+    }
+}
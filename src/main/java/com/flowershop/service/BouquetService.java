@@ -1,9 +1,13 @@
 package com.flowershop.service;
 
+import com.flowershop.dto.BouquetCardView;
 import com.flowershop.dto.BouquetDto;
+import com.flowershop.dto.BouquetFilter;
+import com.flowershop.dto.CursorPage;
 import com.flowershop.entity.Bouquet;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -19,6 +23,9 @@ public interface BouquetService {
     List<Bouquet> findAllActive();
     List<Bouquet> findAllDeleted();
     Page<Bouquet> findAll(Pageable pageable);
+    CursorPage<BouquetCardView> scroll(String cursor, int size, Sort sort, boolean withCount);
+    Page<BouquetCardView> findAllCards(Pageable pageable);
+    Page<BouquetCardView> findActiveCards(Pageable pageable);
     Page<Bouquet> findActiveBouquets(Pageable pageable);
     List<Bouquet> findByCategory(Long categoryId);
     List<Bouquet> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
@@ -36,5 +43,6 @@ public interface BouquetService {
     Page<Bouquet> findByDeletedTrue(Pageable pageable);
     Page<Bouquet> findByInStockFalse(Pageable pageable);
     Page<Bouquet> findBySearchAndCategory(String search, Long categoryId, Pageable pageable);
+    Page<Bouquet> findByFilter(BouquetFilter filter, Pageable pageable);
 
 }
\ No newline at end of file
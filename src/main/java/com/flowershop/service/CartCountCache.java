@@ -0,0 +1,100 @@
+package com.flowershop.service;
+
+import com.flowershop.repository.CartItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Количество товаров в корзине по пользователям, для значка в навбаре.
+ * Изменения корзины записывают новое значение после коммита; при промахе
+ * значение один раз считается в БД. Размер ограничен, редко читаемые
+ * записи вытесняются.
+ */
+@Component
+public class CartCountCache {
+
+    private final CartItemRepository cartItemRepository;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<Long, Entry> counts = new ConcurrentHashMap<>();
+
+    public CartCountCache(CartItemRepository cartItemRepository,
+                          @Value("${cart.count-cache.max-entries:10000}") int maxEntries) {
+        this.cartItemRepository = cartItemRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    public int get(Long userId) {
+        Entry entry = counts.get(userId);
+        if (entry != null) {
+            entry.lastAccess = System.nanoTime();
+            return entry.count;
+        }
+
+        int count = cartItemRepository.sumQuantityByUserId(userId).intValue();
+        // Запись, сделанная параллельно после коммита, свежее прочитанного значения
+        counts.putIfAbsent(userId, new Entry(count));
+        evictIfNeeded();
+        return count;
+    }
+
+    /**
+     * Запоминает новое количество после коммита текущей транзакции.
+     * При откате запись сбрасывается, и значение перечитается из БД.
+     */
+    public void set(Long userId, int count) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        put(userId, count);
+                    } else {
+                        counts.remove(userId);
+                    }
+                }
+            });
+        } else {
+            put(userId, count);
+        }
+    }
+
+    public void evict(Long userId) {
+        counts.remove(userId);
+    }
+
+    private void put(Long userId, int count) {
+        counts.put(userId, new Entry(count));
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        if (counts.size() <= maxEntries) {
+            return;
+        }
+        // Вытесняем с запасом, чтобы не сортировать на каждой вставке
+        int excess = counts.size() - maxEntries + Math.max(1, maxEntries / 10);
+        counts.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(counts::remove);
+    }
+
+    private static final class Entry {
+        final int count;
+        volatile long lastAccess;
+
+        Entry(int count) {
+            this.count = count;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.flowershop.service;
 
 import com.flowershop.dto.AddToCartRequest;
+import com.flowershop.dto.CartBatchRequest;
 import com.flowershop.dto.CartDto;
 import com.flowershop.entity.Cart;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 public interface CartService {
 
     @Transactional(readOnly = true)
@@ -22,4 +25,7 @@ public interface CartService {
     CartDto removeFromCart(Long userId, Long bouquetId);
 
     void clearCart(Long userId);
+
+    // Все операции в одной транзакции, один итоговый CartDto
+    CartDto applyBatch(Long userId, List<CartBatchRequest.Operation> operations);
 }
\ No newline at end of file
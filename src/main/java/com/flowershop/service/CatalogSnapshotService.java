@@ -0,0 +1,234 @@
+package com.flowershop.service;
+
+import com.flowershop.entity.Bouquet;
+import com.flowershop.entity.Category;
+import com.flowershop.repository.BouquetRepository;
+import com.flowershop.util.BouquetSnapshotUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Неизменяемый снимок активного каталога (в наличии и не удалены) в памяти.
+ * Чтение идёт без обращения к БД; записи в букеты помечают снимок устаревшим
+ * после коммита, а списание остатков патчит его на месте.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private final BouquetRepository bouquetRepository;
+    private final Duration maxAge;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public CatalogSnapshotService(BouquetRepository bouquetRepository,
+                                  @Value("${catalog.snapshot.max-age-seconds:300}") long maxAgeSeconds) {
+        this.bouquetRepository = bouquetRepository;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+    }
+
+    /**
+     * Страница активных букетов, опционально в одной категории.
+     * Возвращает null, если сортировку нельзя выполнить в памяти
+     * или снимок не удалось построить — тогда вызывающий идёт в БД.
+     */
+    public Page<Bouquet> findActive(Long categoryId, Pageable pageable) {
+        Comparator<Bouquet> comparator = BouquetSnapshotUtil.comparatorFor(pageable.getSort());
+        if (comparator == null) {
+            return null;
+        }
+
+        Snapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return null;
+        }
+
+        List<Bouquet> view = snapshot.view(categoryId, pageable.getSort(), comparator);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(view);
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), view.size());
+        int to = Math.min(from + pageable.getPageSize(), view.size());
+        return new PageImpl<>(view.subList(from, to), pageable, view.size());
+    }
+
+    /**
+     * Помечает снимок устаревшим после коммита текущей транзакции.
+     */
+    public void invalidate() {
+        afterCommit(generation::incrementAndGet);
+    }
+
+    /**
+     * Применяет новые остатки после коммита без перечитывания каталога.
+     *
+     * @param remaining bouquetId -> остаток после изменения
+     */
+    public void applyStock(Map<Long, Integer> remaining) {
+        if (remaining == null || remaining.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> copy = new HashMap<>(remaining);
+        afterCommit(() -> patchStock(copy));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void patchStock(Map<Long, Integer> remaining) {
+        // Пересборка читает БД прямо сейчас и может не увидеть этот коммит
+        if (rebuildLock.isLocked()) {
+            generation.incrementAndGet();
+            return;
+        }
+
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+
+            Map<Long, Bouquet> patched = new LinkedHashMap<>(snapshot.byId);
+            boolean needsRebuild = false;
+            for (Map.Entry<Long, Integer> entry : remaining.entrySet()) {
+                Bouquet existing = patched.get(entry.getKey());
+                int stock = entry.getValue();
+                if (existing == null) {
+                    // Букет вернулся в наличие, а его данных в снимке нет
+                    needsRebuild |= stock > 0;
+                } else if (stock <= 0) {
+                    patched.remove(entry.getKey());
+                } else {
+                    Bouquet updated = BouquetSnapshotUtil.detachedCopy(existing, existing.getCategory());
+                    updated.setStockQuantity(stock);
+                    patched.put(entry.getKey(), updated);
+                }
+            }
+
+            if (needsRebuild) {
+                generation.incrementAndGet();
+                return;
+            }
+
+            Snapshot next = new Snapshot(patched, snapshot.generation, snapshot.builtAt);
+            if (current.compareAndSet(snapshot, next)) {
+                return;
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (isFresh(snapshot)) {
+            return snapshot;
+        }
+
+        // Пока один поток пересобирает снимок, остальные отдают предыдущий
+        if (snapshot != null && !rebuildLock.tryLock()) {
+            return snapshot;
+        }
+        if (snapshot == null) {
+            rebuildLock.lock();
+        }
+
+        try {
+            snapshot = current.get();
+            if (isFresh(snapshot)) {
+                return snapshot;
+            }
+            return rebuild();
+        } catch (Exception e) {
+            System.out.println("Catalog snapshot rebuild failed: " + e.getMessage());
+            return null;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.generation == generation.get()
+                && snapshot.builtAt + maxAge.toMillis() > System.currentTimeMillis();
+    }
+
+    private Snapshot rebuild() {
+        long startedGeneration = generation.get();
+        long startedAt = System.currentTimeMillis();
+
+        List<Bouquet> active = bouquetRepository.findAllActiveWithCategory();
+
+        Map<Long, Category> categories = new HashMap<>();
+        Map<Long, Bouquet> byId = new LinkedHashMap<>();
+        for (Bouquet bouquet : active) {
+            Category category = bouquet.getCategory() == null ? null
+                    : categories.computeIfAbsent(bouquet.getCategory().getId(),
+                            id -> BouquetSnapshotUtil.detachedCopy(bouquet.getCategory()));
+            byId.put(bouquet.getId(), BouquetSnapshotUtil.detachedCopy(bouquet, category));
+        }
+
+        Snapshot snapshot = new Snapshot(byId, startedGeneration, startedAt);
+        current.set(snapshot);
+        System.out.println("Catalog snapshot rebuilt: " + byId.size() + " bouquets");
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+        private final Map<Long, Bouquet> byId;
+        private final long generation;
+        private final long builtAt;
+        // Отсортированные представления строятся один раз на (категория, сортировка)
+        private final Map<String, List<Bouquet>> views = new ConcurrentHashMap<>();
+
+        private Snapshot(Map<Long, Bouquet> byId, long generation, long builtAt) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.generation = generation;
+            this.builtAt = builtAt;
+        }
+
+        private List<Bouquet> view(Long categoryId, Sort sort, Comparator<Bouquet> comparator) {
+            String key = categoryId + "|" + sort;
+            return views.computeIfAbsent(key, k -> {
+                List<Bouquet> list = new ArrayList<>();
+                for (Bouquet bouquet : byId.values()) {
+                    if (categoryId == null || (bouquet.getCategory() != null
+                            && categoryId.equals(bouquet.getCategory().getId()))) {
+                        list.add(bouquet);
+                    }
+                }
+                list.sort(comparator);
+                return Collections.unmodifiableList(list);
+            });
+        }
+    }
+}
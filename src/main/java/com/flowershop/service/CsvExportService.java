@@ -0,0 +1,214 @@
+package com.flowershop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая выгрузка отчетов в CSV.
+ * Строки читаются курсором (forward-only, фиксированный fetch size) внутри
+ * read-only транзакции и сразу пишутся в выходной поток, поэтому память
+ * не зависит от числа строк, а первые байты уходят клиенту сразу.
+ */
+@Service
+public class CsvExportService {
+
+    private static final String[] SALES_HEADERS =
+            {"Order Number", "Order Date", "Customer", "Total Amount", "Status", "Items Count", "Bouquet Names"};
+
+    private static final String[] USERS_HEADERS =
+            {"ID", "Username", "Email", "First Name", "Last Name", "Total Orders", "Total Spent", "Last Order", "Registration Date"};
+
+    private static final String[] BOUQUETS_HEADERS =
+            {"Bouquet ID", "Name", "Price", "Category", "In Stock", "Stock Quantity", "Times Ordered", "Total Ordered Quantity", "Revenue"};
+
+    // Позиции заказа собираются подзапросами по индексу order_id, без общего GROUP BY
+    private static final String SALES_SQL = """
+        SELECT o.order_number, o.created_at, u.username, o.total_amount, o.status,
+               (SELECT COUNT(*) FROM order_items oi WHERE oi.order_id = o.id),
+               (SELECT STRING_AGG(b.name, ', ' ORDER BY b.name)
+                FROM order_items oi JOIN bouquets b ON b.id = oi.bouquet_id
+                WHERE oi.order_id = o.id)
+        FROM orders o
+        LEFT JOIN users u ON u.id = o.user_id
+        WHERE o.deleted = false
+    """;
+
+    private static final String USERS_SQL = """
+        SELECT u.id, u.username, u.email, u.first_name, u.last_name,
+               s.order_count, s.total_spent, s.last_order_at, u.created_at
+        FROM sales_customer s
+        JOIN users u ON u.id = s.user_id
+        WHERE u.deleted = false AND s.order_count > 0
+        ORDER BY s.total_spent DESC
+    """;
+
+    private static final String BOUQUETS_SQL = """
+        SELECT b.id, b.name, b.price, c.name, b.in_stock, b.stock_quantity,
+               COALESCE(s.times_ordered, 0), COALESCE(s.total_quantity, 0), COALESCE(s.revenue, 0)
+        FROM bouquets b
+        LEFT JOIN categories c ON c.id = b.category_id
+        LEFT JOIN (
+            SELECT bouquet_id, order_lines AS times_ordered, quantity AS total_quantity, revenue
+            FROM sales_bouquet_total
+        ) s ON s.bouquet_id = b.id
+        WHERE b.deleted = false
+        ORDER BY b.id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Charset charset;
+    private final char delimiter;
+
+    public CsvExportService(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${export.csv.fetch-size:1000}") int fetchSize,
+                            @Value("${export.csv.charset:UTF-8}") String charset,
+                            @Value("${export.csv.delimiter:,}") char delimiter) {
+        // Отдельный JdbcTemplate: fetch size нужен только выгрузке
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL читает порциями только при выключенном autocommit, то есть в транзакции
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.charset = Charset.forName(charset);
+        this.delimiter = delimiter;
+    }
+
+    // Кодировка выгрузки - для заголовка Content-Type
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Заказы за период, новые сначала; null в границе - без ограничения.
+     */
+    public void exportSales(OutputStream out, LocalDate startDate, LocalDate endDate, boolean gzip) {
+        StringBuilder sql = new StringBuilder(SALES_SQL);
+        List<Object> params = new ArrayList<>();
+        if (startDate != null) {
+            sql.append(" AND o.created_at >= ?");
+            params.add(Timestamp.valueOf(startDate.atStartOfDay()));
+        }
+        if (endDate != null) {
+            sql.append(" AND o.created_at < ?");
+            params.add(Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+        }
+        sql.append(" ORDER BY o.created_at DESC");
+
+        stream(out, gzip, sql.toString(), params.toArray(), SALES_HEADERS);
+    }
+
+    public void exportUsers(OutputStream out, boolean gzip) {
+        stream(out, gzip, USERS_SQL, new Object[0], USERS_HEADERS);
+    }
+
+    public void exportBouquets(OutputStream out, boolean gzip) {
+        stream(out, gzip, BOUQUETS_SQL, new Object[0], BOUQUETS_HEADERS);
+    }
+
+    private void stream(OutputStream out, boolean gzip, String sql, Object[] params, String[] headers) {
+        try {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, charset), 16384);
+
+            writeRow(writer, headers);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                return ps;
+            }, new CsvRowHandler(writer, headers.length)));
+
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи CSV: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = value.indexOf(delimiter) >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    // Пишет каждую строку сразу после чтения, ничего не накапливая
+    private class CsvRowHandler implements RowCallbackHandler {
+        private final Writer writer;
+        private final String[] row;
+
+        CsvRowHandler(Writer writer, int columns) {
+            this.writer = writer;
+            this.row = new String[columns];
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = Math.min(row.length, meta.getColumnCount());
+            for (int i = 0; i < columns; i++) {
+                row[i] = format(rs.getObject(i + 1));
+            }
+            try {
+                writeRow(writer, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.flowershop.service;
+
+import com.flowershop.repository.UserRepository;
+import com.flowershop.security.ShopUserDetails;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Id текущего пользователя без загрузки сущности User и ролей.
+ * Обычно id берется из principal; для principal другого типа
+ * (например, remember-me) используется кэш username -> id.
+ */
+@Component
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+    // Отсутствующие имена не кэшируются, чтобы новый пользователь находился сразу
+    private final ConcurrentHashMap<String, Long> idsByUsername = new ConcurrentHashMap<>();
+
+    public CurrentUserResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Id пользователя или null, если запрос не аутентифицирован.
+     */
+    public Long getUserId(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof ShopUserDetails principal) {
+            return principal.getId();
+        }
+        return findIdByUsername(authentication.getName());
+    }
+
+    public Long getCurrentUserId() {
+        return getUserId(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    public Long findIdByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        Long cached = idsByUsername.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        Long id = userRepository.findIdByUsername(username).orElse(null);
+        if (id != null) {
+            idsByUsername.put(username, id);
+        }
+        return id;
+    }
+
+    public boolean isAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(auth -> "ROLE_ADMIN".equals(auth.getAuthority()));
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            idsByUsername.remove(username);
+        }
+    }
+}
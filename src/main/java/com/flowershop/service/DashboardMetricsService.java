@@ -0,0 +1,7 @@
+package com.flowershop.service;
+
+import com.flowershop.dto.DashboardMetrics;
+
+public interface DashboardMetricsService {
+    DashboardMetrics getMetrics();
+}
@@ -0,0 +1,234 @@
+package com.flowershop.service;
+
+import com.flowershop.dto.CartBatchRequest;
+import com.flowershop.dto.CartDto;
+import com.flowershop.dto.CartItemDto;
+import com.flowershop.entity.Bouquet;
+import com.flowershop.repository.BouquetRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.WebUtils;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Корзина неавторизованного покупателя: bouquetId -> количество в HTTP-сессии.
+ * В таблицы carts/cart_items ничего не пишется; при входе корзина
+ * переносится в постоянную одним пакетом (см. {@link #mergeInto}).
+ */
+@Service
+public class GuestCartService {
+
+    private static final String SESSION_ATTRIBUTE = "GUEST_CART";
+    private static final int MAX_QUANTITY = 99;
+
+    private final BouquetRepository bouquetRepository;
+    private final CartService cartService;
+    private final int maxItems;
+
+    public GuestCartService(BouquetRepository bouquetRepository,
+                            CartService cartService,
+                            @Value("${cart.guest.max-items:50}") int maxItems) {
+        this.bouquetRepository = bouquetRepository;
+        this.cartService = cartService;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Количество товаров; без сессии - 0, сессия не создается.
+     */
+    public int getCount(HttpServletRequest request) {
+        GuestCart cart = find(request);
+        if (cart == null) {
+            return 0;
+        }
+        synchronized (cart) {
+            return cart.items.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    public CartDto getCart(HttpServletRequest request) {
+        GuestCart cart = find(request);
+        if (cart == null) {
+            return toDto(Map.of());
+        }
+        synchronized (cart) {
+            return toDto(new LinkedHashMap<>(cart.items));
+        }
+    }
+
+    public CartDto applyBatch(HttpServletRequest request, List<CartBatchRequest.Operation> operations) {
+        // Добавляемые букеты проверяются одним запросом
+        List<Long> addedIds = operations.stream()
+                .filter(op -> op.getType() == CartBatchRequest.OperationType.ADD)
+                .map(CartBatchRequest.Operation::getBouquetId)
+                .distinct()
+                .toList();
+        Map<Long, Bouquet> bouquets = addedIds.isEmpty() ? Map.of()
+                : bouquetRepository.findAllWithCategoryByIdIn(addedIds).stream()
+                        .collect(Collectors.toMap(Bouquet::getId, Function.identity()));
+
+        GuestCart cart = getOrCreate(request);
+        Map<Long, Integer> snapshot;
+        synchronized (cart) {
+            // Изменения применяются к копии: при ошибке сессия не меняется
+            Map<Long, Integer> items = new LinkedHashMap<>(cart.items);
+            for (CartBatchRequest.Operation op : operations) {
+                apply(items, bouquets, op);
+            }
+            cart.items.clear();
+            cart.items.putAll(items);
+            snapshot = new LinkedHashMap<>(items);
+        }
+        // Повторная установка нужна, если сессии хранятся вне памяти
+        request.getSession().setAttribute(SESSION_ATTRIBUTE, cart);
+        return toDto(snapshot);
+    }
+
+    public void clear(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.removeAttribute(SESSION_ATTRIBUTE);
+        }
+    }
+
+    /**
+     * Переносит гостевую корзину в корзину пользователя одним пакетом
+     * и очищает ее. Недоступные букеты пропускаются; при ошибке гостевая
+     * корзина остается в сессии, а вход не прерывается.
+     */
+    public void mergeInto(HttpServletRequest request, Long userId) {
+        GuestCart cart = find(request);
+        if (cart == null || userId == null) {
+            return;
+        }
+
+        Map<Long, Integer> items;
+        synchronized (cart) {
+            items = new LinkedHashMap<>(cart.items);
+        }
+        if (items.isEmpty()) {
+            clear(request);
+            return;
+        }
+
+        try {
+            List<CartBatchRequest.Operation> operations = bouquetRepository.findAllWithCategoryByIdIn(items.keySet())
+                    .stream()
+                    .filter(this::isAvailable)
+                    .map(bouquet -> new CartBatchRequest.Operation(
+                            CartBatchRequest.OperationType.ADD, bouquet.getId(), items.get(bouquet.getId())))
+                    .toList();
+
+            if (!operations.isEmpty()) {
+                cartService.applyBatch(userId, operations);
+                System.out.println("Guest cart merged for user " + userId + ": " + operations.size() + " items");
+            }
+            clear(request);
+        } catch (Exception e) {
+            System.err.println("Failed to merge guest cart for user " + userId + ": " + e.getMessage());
+        }
+    }
+
+    private void apply(Map<Long, Integer> items, Map<Long, Bouquet> bouquets, CartBatchRequest.Operation op) {
+        Long bouquetId = op.getBouquetId();
+        Integer quantity = op.getQuantity();
+
+        switch (op.getType()) {
+            case ADD -> {
+                Bouquet bouquet = bouquets.get(bouquetId);
+                if (bouquet == null || Boolean.TRUE.equals(bouquet.getDeleted())) {
+                    throw new RuntimeException("Букет не найден: " + bouquetId);
+                }
+                if (!bouquet.getInStock()) {
+                    throw new RuntimeException("Букет отсутствует в наличии: " + bouquet.getName());
+                }
+                if (quantity == null || quantity <= 0) {
+                    throw new RuntimeException("Количество должно быть больше 0");
+                }
+                put(items, bouquetId, items.getOrDefault(bouquetId, 0) + quantity);
+            }
+            case UPDATE -> {
+                if (quantity == null || quantity <= 0) {
+                    items.remove(bouquetId);
+                } else if (!items.containsKey(bouquetId)) {
+                    throw new RuntimeException("Элемент корзины не найден: " + bouquetId);
+                } else {
+                    put(items, bouquetId, quantity);
+                }
+            }
+            case REMOVE -> items.remove(bouquetId);
+        }
+    }
+
+    private void put(Map<Long, Integer> items, Long bouquetId, int quantity) {
+        if (!items.containsKey(bouquetId) && items.size() >= maxItems) {
+            throw new RuntimeException("В корзине может быть не более " + maxItems + " разных букетов");
+        }
+        items.put(bouquetId, Math.min(quantity, MAX_QUANTITY));
+    }
+
+    private boolean isAvailable(Bouquet bouquet) {
+        return Boolean.TRUE.equals(bouquet.getInStock()) && !Boolean.TRUE.equals(bouquet.getDeleted());
+    }
+
+    // Цены и названия берутся из БД на момент показа, одним запросом
+    private CartDto toDto(Map<Long, Integer> items) {
+        CartDto dto = new CartDto();
+        List<CartItemDto> itemDtos = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+
+        if (!items.isEmpty()) {
+            Map<Long, Bouquet> bouquets = bouquetRepository.findAllWithCategoryByIdIn(items.keySet()).stream()
+                    .collect(Collectors.toMap(Bouquet::getId, Function.identity()));
+            for (Map.Entry<Long, Integer> entry : items.entrySet()) {
+                Bouquet bouquet = bouquets.get(entry.getKey());
+                if (bouquet == null) {
+                    continue;
+                }
+                CartItemDto item = new CartItemDto(bouquet.getId(), entry.getValue());
+                item.setBouquetName(bouquet.getName());
+                item.setBouquetImage(bouquet.getImageUrl());
+                item.setUnitPrice(bouquet.getPrice());
+                item.setSubtotal(bouquet.getPrice().multiply(BigDecimal.valueOf(entry.getValue())));
+                total = total.add(item.getSubtotal());
+                itemDtos.add(item);
+            }
+        }
+
+        dto.setItems(itemDtos);
+        dto.setTotalAmount(total);
+        return dto;
+    }
+
+    private GuestCart find(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? (GuestCart) session.getAttribute(SESSION_ATTRIBUTE) : null;
+    }
+
+    private GuestCart getOrCreate(HttpServletRequest request) {
+        HttpSession session = request.getSession(true);
+        synchronized (WebUtils.getSessionMutex(session)) {
+            GuestCart cart = (GuestCart) session.getAttribute(SESSION_ATTRIBUTE);
+            if (cart == null) {
+                cart = new GuestCart();
+                session.setAttribute(SESSION_ATTRIBUTE, cart);
+            }
+            return cart;
+        }
+    }
+
+    private static final class GuestCart implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final LinkedHashMap<Long, Integer> items = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,161 @@
+package com.flowershop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowershop.exception.IdempotencyKeyReusedException;
+import com.flowershop.exception.RequestInProgressException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Результаты операций по ключу идемпотентности. Первый запрос с ключом
+ * выполняет операцию, параллельные дубликаты ждут его результата, повторы
+ * в пределах TTL получают сохраненный результат без повторного выполнения.
+ * Ошибка не запоминается: запрос с тем же ключом можно повторить.
+ * Вместе с ключом хранится хэш тела запроса: тот же ключ с другим телом отклоняется.
+ * Хранить стоит небольшие значения (id, номер), а не графы сущностей.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+    private final long waitTimeoutMs;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs,
+                            @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * SHA-256 от JSON тела запроса - для сравнения повторов.
+     */
+    public String fingerprint(Object payload) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Не удалось вычислить хэш запроса: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выполняет операцию один раз на (scope, key). Без ключа выполняет всегда.
+     * scope отделяет ключи разных пользователей и операций и должен строиться
+     * из аутентифицированного пользователя, а не из тела запроса.
+     *
+     * @throws IdempotencyKeyReusedException ключ уже использован с другим fingerprint
+     * @throws RequestInProgressException    первый запрос не завершился за время ожидания
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, String fingerprint, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Ключ идемпотентности длиннее " + MAX_KEY_LENGTH + " символов");
+        }
+
+        String id = scope + ":" + key;
+        Entry entry = new Entry(fingerprint);
+        Entry existing = entries.putIfAbsent(id, entry);
+        if (existing != null && existing.isExpired(ttlNanos)) {
+            entries.remove(id, existing);
+            existing = entries.putIfAbsent(id, entry);
+        }
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException("Ключ идемпотентности уже использован с другими данными запроса");
+            }
+            return (T) await(existing);
+        }
+
+        evictIfNeeded();
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Любая ошибка, включая Error, освобождает ключ, иначе повторы ждали бы до таймаута
+            entries.remove(id, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RequestInProgressException("Запрос с этим ключом еще выполняется, повторите позже");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInProgressException("Ожидание результата прервано");
+        } catch (ExecutionException e) {
+            // Дубликат получает ту же ошибку, что и первый запрос
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(ttlNanos));
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        // Выполняющиеся не вытесняются: иначе дубликат выполнился бы повторно
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        entries.entrySet().stream()
+                .filter(e -> e.getValue().result.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().createdAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final long createdAt = System.nanoTime();
+        final String fingerprint;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint != null ? fingerprint : "";
+        }
+
+        boolean isExpired(long ttlNanos) {
+            return result.isDone() && System.nanoTime() - createdAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.flowershop.service;
+
+import com.flowershop.dto.OrderDto;
+import com.flowershop.entity.Order;
+import com.flowershop.exception.OrderIntakeRejectedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Асинхронное оформление заказов. Запрос только проверяется и ставится
+ * в ограниченную очередь, клиент получает номер заявки. Фиксированное число
+ * обработчиков забирает заявки пачками и оформляет пачку одной транзакцией
+ * с общим списанием остатков, поэтому соединений с БД занято не больше,
+ * чем обработчиков. Переполненная очередь отказывает сразу (503 + Retry-After).
+ * При остановке новые заявки не принимаются, а принятые дооформляются.
+ */
+@Component
+public class OrderIntakeQueue {
+
+    public enum Status { QUEUED, PROCESSING, COMPLETED, FAILED }
+
+    private final OrderService orderService;
+    private final CartCountCache cartCountCache;
+    private final int workers;
+    private final int batchSize;
+    private final long retryAfterSeconds;
+    private final long ticketTtlMillis;
+    private final long shutdownTimeoutSeconds;
+
+    private final BlockingQueue<Ticket> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final ExecutorService workerPool;
+    private final ScheduledExecutorService cleaner;
+    private volatile boolean running = true;
+
+    public OrderIntakeQueue(OrderService orderService,
+                            CartCountCache cartCountCache,
+                            @Value("${orders.intake.workers:2}") int workers,
+                            @Value("${orders.intake.queue-capacity:500}") int queueCapacity,
+                            @Value("${orders.intake.batch-size:20}") int batchSize,
+                            @Value("${orders.intake.retry-after-seconds:5}") long retryAfterSeconds,
+                            @Value("${orders.intake.ticket-ttl-seconds:600}") long ticketTtlSeconds,
+                            @Value("${orders.intake.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.orderService = orderService;
+        this.cartCountCache = cartCountCache;
+        this.workers = workers;
+        this.batchSize = Math.max(1, batchSize);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.ticketTtlMillis = TimeUnit.SECONDS.toMillis(ticketTtlSeconds);
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::work);
+        }
+        cleaner.scheduleWithFixedDelay(this::removeExpired, 60, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ставит оформление в очередь. Корзина проверяется по кэшу счетчиков
+     * {@link CartCountCache}: в БД идет только промах кэша, один COUNT по корзине.
+     *
+     * @throws OrderIntakeRejectedException очередь заполнена или сервер останавливается
+     */
+    public Ticket submit(Long userId, OrderDto orderDto) {
+        if (!running) {
+            throw new OrderIntakeRejectedException("Сервер перезапускается, повторите через "
+                    + retryAfterSeconds + " с", retryAfterSeconds);
+        }
+        if (cartCountCache.get(userId) <= 0) {
+            throw new IllegalArgumentException("Корзина пуста");
+        }
+
+        Ticket ticket = new Ticket(userId, orderDto);
+        tickets.put(ticket.getId(), ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.getId());
+            throw new OrderIntakeRejectedException(retryAfterSeconds);
+        }
+        return ticket;
+    }
+
+    /**
+     * Заявка пользователя; чужие и устаревшие заявки не видны.
+     */
+    public Ticket find(String ticketId, Long userId) {
+        Ticket ticket = tickets.get(ticketId);
+        return ticket != null && ticket.userId.equals(userId) ? ticket : null;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    // После остановки обработчик дорабатывает очередь до конца и выходит
+    private void work() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Ticket> batch = new ArrayList<>();
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Order intake worker error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void process(List<Ticket> batch) {
+        // В одну транзакцию - по одной заявке на пользователя, повторные оформляются отдельно
+        Map<Long, Ticket> byUser = new LinkedHashMap<>();
+        List<Ticket> singles = new ArrayList<>();
+        for (Ticket ticket : batch) {
+            ticket.status = Status.PROCESSING;
+            if (byUser.putIfAbsent(ticket.userId, ticket) != null) {
+                singles.add(ticket);
+            }
+        }
+
+        if (byUser.size() > 1) {
+            Map<Long, OrderDto> checkouts = new LinkedHashMap<>();
+            byUser.forEach((userId, ticket) -> checkouts.put(userId, ticket.orderDto));
+            try {
+                List<Order> orders = orderService.createOrdersFromCarts(checkouts);
+                int i = 0;
+                for (Ticket ticket : byUser.values()) {
+                    ticket.complete(orders.get(i++));
+                }
+            } catch (Exception e) {
+                // Пачка откатилась целиком: оформляем по одной, чтобы ошибка касалась только своей заявки
+                System.out.println("Order intake batch of " + byUser.size() + " failed, retrying one by one: " + e.getMessage());
+                singles.addAll(0, byUser.values());
+            }
+        } else {
+            singles.addAll(0, byUser.values());
+        }
+
+        for (Ticket ticket : singles) {
+            try {
+                ticket.complete(orderService.createOrderFromCart(ticket.userId, ticket.orderDto));
+            } catch (Exception e) {
+                ticket.fail(e.getMessage());
+            }
+        }
+    }
+
+    private void removeExpired() {
+        long threshold = System.currentTimeMillis() - ticketTtlMillis;
+        tickets.values().removeIf(ticket -> ticket.isDone() && ticket.finishedAt < threshold);
+    }
+
+    /**
+     * Перестаёт принимать заявки и ждёт, пока обработчики оформят очередь.
+     * Прерывает их только по истечении shutdown-timeout.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        cleaner.shutdownNow();
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Order intake did not drain in " + shutdownTimeoutSeconds
+                        + "s, " + queue.size() + " queued orders will fail");
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        List<Ticket> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Ticket ticket : remaining) {
+            ticket.fail("Сервер остановлен, заказ не оформлен");
+        }
+    }
+
+    /**
+     * Заявка на оформление. done завершается вместе с заявкой - для ожидания без опроса.
+     */
+    public static final class Ticket {
+        private final String id = UUID.randomUUID().toString();
+        private final Long userId;
+        private final OrderDto orderDto;
+        private final CompletableFuture<Ticket> done = new CompletableFuture<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile Long orderId;
+        private volatile String orderNumber;
+        private volatile String message;
+        private volatile long finishedAt;
+
+        Ticket(Long userId, OrderDto orderDto) {
+            this.userId = userId;
+            this.orderDto = orderDto;
+        }
+
+        void complete(Order order) {
+            orderId = order.getId();
+            orderNumber = order.getOrderNumber();
+            finish(Status.COMPLETED);
+        }
+
+        void fail(String reason) {
+            message = reason;
+            finish(Status.FAILED);
+        }
+
+        private void finish(Status result) {
+            finishedAt = System.currentTimeMillis();
+            status = result;
+            done.complete(this);
+        }
+
+        public boolean isDone() {
+            return status == Status.COMPLETED || status == Status.FAILED;
+        }
+
+        public CompletableFuture<Ticket> getDone() { return done; }
+        public String getId() { return id; }
+        public Status getStatus() { return status; }
+
+        public Map<String, Object> toView() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("ticketId", id);
+            view.put("status", status.name());
+            view.put("orderId", orderId);
+            view.put("orderNumber", orderNumber);
+            view.put("message", message);
+            return view;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.flowershop.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Номера заказов без обращения к БД: миллисекунды от эпохи магазина,
+ * номер узла и счетчик внутри миллисекунды, упакованные в long и
+ * записанные в base36 (ORD-XXXXXXXXXXXX). Номера растут со временем и не
+ * повторяются между JVM, пока у работающих узлов разные node id.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    private static final String PREFIX = "ORD-";
+    // 2024-01-01T00:00:00Z: 40 бит времени хватает примерно на 34 года
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int LENGTH = 12;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private long lastMillis = -1;
+    private long sequence;
+
+    @Autowired
+    public OrderNumberGenerator(DataSource dataSource,
+                                @Value("${orders.number.node-id:-1}") long configuredNodeId) {
+        this(configuredNodeId >= 0 ? configuredNodeId : leaseNodeId(dataSource), System::currentTimeMillis);
+        System.out.println("Order number generator node id: " + nodeId);
+    }
+
+    // Часы подменяются в тестах
+    OrderNumberGenerator(long nodeId, LongSupplier clock) {
+        this.nodeId = nodeId & MAX_NODE;
+        this.clock = clock;
+    }
+
+    /**
+     * Следующий номер. До 4096 номеров в миллисекунду на узел; при переполнении
+     * или переводе часов назад счетчик заимствует следующую миллисекунду,
+     * поэтому вызов не блокируется и не повторяет номер.
+     */
+    public String next() {
+        long value;
+        synchronized (this) {
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            if (now > lastMillis) {
+                lastMillis = now;
+                sequence = 0;
+            } else if (sequence < MAX_SEQUENCE) {
+                sequence++;
+            } else {
+                lastMillis++;
+                sequence = 0;
+            }
+            value = (lastMillis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+        }
+
+        // Фиксированная длина: строковая сортировка совпадает с порядком создания
+        String encoded = Long.toString(value, 36).toUpperCase(Locale.ROOT);
+        return PREFIX + "0".repeat(Math.max(0, LENGTH - encoded.length())) + encoded;
+    }
+
+    // Каждый запуск берет очередной номер узла из последовательности БД - один запрос при старте
+    private static long leaseNodeId(DataSource dataSource) {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS order_number_node_seq");
+            Long value = jdbcTemplate.queryForObject("SELECT nextval('order_number_node_seq')", Long.class);
+            return value != null ? value & MAX_NODE : randomNodeId();
+        } catch (Exception e) {
+            System.err.println("Failed to lease order number node id, using random: " + e.getMessage());
+            return randomNodeId();
+        }
+    }
+
+    private static long randomNodeId() {
+        return ThreadLocalRandom.current().nextLong(MAX_NODE + 1);
+    }
+}
@@ -1,12 +1,16 @@
 package com.flowershop.service;
 
+import com.flowershop.dto.BulkStatusResult;
+import com.flowershop.dto.CursorPage;
 import com.flowershop.dto.OrderDto;
+import com.flowershop.dto.OrderSummaryView;
 import com.flowershop.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OrderService {
@@ -25,11 +29,16 @@ public interface OrderService {
     Page<Order> findByUserId(Long userId, Pageable pageable);
     List<Order> findByStatus(Order.OrderStatus status);
     Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
+    Page<OrderSummaryView> findSummaries(Long userId, Pageable pageable);
+    CursorPage<OrderSummaryView> scroll(Long userId, Order.OrderStatus status, String cursor, int size, boolean withCount);
     Page<Order> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
     List<Order> searchOrders(String search);
     void updateOrderStatus(Long orderId, Order.OrderStatus status);
+    BulkStatusResult updateOrderStatuses(List<Long> orderIds, Order.OrderStatus status);
     Long countByStatus(Order.OrderStatus status);
+    Map<Order.OrderStatus, Long> getStatusCounts();
     Order createOrderFromCart(Long userId, OrderDto orderDto);
+    List<Order> createOrdersFromCarts(Map<Long, OrderDto> checkouts);
     Order createOrderWithTransaction(OrderDto orderDto);
     Optional<Order> findByIdWithItems(Long id);
     void cancelOrder(Long orderId);
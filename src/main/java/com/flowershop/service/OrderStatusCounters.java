@@ -0,0 +1,249 @@
+package com.flowershop.service;
+
+import com.flowershop.entity.Order;
+import com.flowershop.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Количество неудалённых заказов по статусам в памяти.
+ * Засевается одним GROUP BY, дальше меняется дельтами после коммита
+ * и периодически сверяется с БД, поэтому чтение не делает запросов.
+ * Каждое изменение отправляется подключенным админам через {@link AdminEventStream}.
+ */
+@Component
+public class OrderStatusCounters {
+
+    private final OrderRepository orderRepository;
+    private final AdminEventStream adminEventStream;
+    private final long reconcileSeconds;
+
+    private final Map<Order.OrderStatus, AtomicLong> counts = new EnumMap<>(Order.OrderStatus.class);
+    private volatile boolean seeded;
+    private final ScheduledExecutorService reconciler;
+
+    public OrderStatusCounters(OrderRepository orderRepository,
+                               AdminEventStream adminEventStream,
+                               @Value("${orders.status-counters.reconcile-seconds:300}") long reconcileSeconds) {
+        this.orderRepository = orderRepository;
+        this.adminEventStream = adminEventStream;
+        this.reconcileSeconds = reconcileSeconds;
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            counts.put(status, new AtomicLong());
+        }
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-status-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reconcile();
+        if (reconcileSeconds > 0) {
+            reconciler.scheduleWithFixedDelay(this::reconcile, reconcileSeconds, reconcileSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public long get(Order.OrderStatus status) {
+        ensureSeeded();
+        return counts.get(status).get();
+    }
+
+    /**
+     * Все статусы в порядке объявления enum.
+     */
+    public Map<Order.OrderStatus, Long> snapshot() {
+        ensureSeeded();
+        Map<Order.OrderStatus, Long> result = new LinkedHashMap<>();
+        counts.forEach((status, count) -> result.put(status, count.get()));
+        return result;
+    }
+
+    public void orderCreated(Order order) {
+        if (!Boolean.TRUE.equals(order.getDeleted())) {
+            afterCommit(() -> {
+                increment(order.getStatus(), 1);
+                if (adminEventStream.getClientCount() == 0) {
+                    return;
+                }
+
+                Map<String, Object> event = orderEvent(order);
+                event.put("revenueDelta", completedRevenue(order.getStatus(), false, order.getTotalAmount()));
+                adminEventStream.publish("order-created", event);
+            });
+        }
+    }
+
+    public void orderChanged(Order order, Order.OrderStatus previousStatus, Boolean previouslyDeleted) {
+        Order.OrderStatus status = order.getStatus();
+        boolean deleted = Boolean.TRUE.equals(order.getDeleted());
+        boolean wasDeleted = Boolean.TRUE.equals(previouslyDeleted);
+        if (status == previousStatus && deleted == wasDeleted) {
+            return;
+        }
+        afterCommit(() -> {
+            if (!wasDeleted) {
+                increment(previousStatus, -1);
+            }
+            if (!deleted) {
+                increment(status, 1);
+            }
+            if (adminEventStream.getClientCount() == 0) {
+                return;
+            }
+
+            // Выручка на дашборде считается по завершенным заказам
+            Map<String, Object> event = orderEvent(order);
+            event.put("previousStatus", previousStatus != null ? previousStatus.name() : null);
+            event.put("deleted", deleted);
+            event.put("revenueDelta", completedRevenue(status, deleted, order.getTotalAmount())
+                    .subtract(completedRevenue(previousStatus, wasDeleted, order.getTotalAmount())));
+            adminEventStream.publish("order-changed", event);
+        });
+    }
+
+    /**
+     * Массовая смена статуса неудалённых заказов: дельты складываются
+     * и применяются разом, админам уходит одно событие на всю пачку.
+     */
+    public void ordersChanged(List<Order> orders, Map<Long, Order.OrderStatus> previousStatuses) {
+        Map<Order.OrderStatus, Long> deltas = new EnumMap<>(Order.OrderStatus.class);
+        BigDecimal revenueDelta = BigDecimal.ZERO;
+        long completedDelta = 0;
+        int changed = 0;
+        for (Order order : orders) {
+            Order.OrderStatus previousStatus = previousStatuses.get(order.getId());
+            Order.OrderStatus status = order.getStatus();
+            if (status == previousStatus) {
+                continue;
+            }
+            changed++;
+            if (previousStatus != null) {
+                deltas.merge(previousStatus, -1L, Long::sum);
+            }
+            if (status != null) {
+                deltas.merge(status, 1L, Long::sum);
+            }
+            revenueDelta = revenueDelta.add(completedRevenue(status, false, order.getTotalAmount()))
+                    .subtract(completedRevenue(previousStatus, false, order.getTotalAmount()));
+            completedDelta += (status == Order.OrderStatus.COMPLETED ? 1 : 0)
+                    - (previousStatus == Order.OrderStatus.COMPLETED ? 1 : 0);
+        }
+        if (changed == 0) {
+            return;
+        }
+
+        int changedCount = changed;
+        BigDecimal totalRevenueDelta = revenueDelta;
+        long totalCompletedDelta = completedDelta;
+        afterCommit(() -> {
+            deltas.forEach(this::increment);
+            if (adminEventStream.getClientCount() == 0) {
+                return;
+            }
+
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("changedCount", changedCount);
+            event.put("counts", toView());
+            event.put("revenueDelta", totalRevenueDelta);
+            event.put("completedDelta", totalCompletedDelta);
+            adminEventStream.publish("orders-changed", event);
+        });
+    }
+
+    /**
+     * Перезаписывает счетчики значениями из БД. Дельта, пришедшая во время
+     * запроса, может дать временное расхождение до следующей сверки.
+     */
+    public synchronized void reconcile() {
+        try {
+            Map<Order.OrderStatus, Long> actual = new EnumMap<>(Order.OrderStatus.class);
+            for (Object[] row : orderRepository.countActiveGroupedByStatus()) {
+                actual.put((Order.OrderStatus) row[0], (Long) row[1]);
+            }
+            counts.forEach((status, count) -> {
+                long value = actual.getOrDefault(status, 0L);
+                long previous = count.getAndSet(value);
+                if (seeded && previous != value) {
+                    System.out.println("Order status counter " + status + " corrected: " + previous + " -> " + value);
+                }
+            });
+            seeded = true;
+        } catch (Exception e) {
+            System.err.println("Failed to reconcile order status counters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Счетчики с именами статусов, в виде для JSON.
+     */
+    public Map<String, Object> toView() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        snapshot().forEach((status, count) -> view.put(status.name(), count));
+        return view;
+    }
+
+    private Map<String, Object> orderEvent(Order order) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("orderId", order.getId());
+        event.put("orderNumber", order.getOrderNumber());
+        event.put("status", order.getStatus() != null ? order.getStatus().name() : null);
+        event.put("totalAmount", order.getTotalAmount());
+        event.put("counts", toView());
+        return event;
+    }
+
+    private static BigDecimal completedRevenue(Order.OrderStatus status, boolean deleted, BigDecimal amount) {
+        if (deleted || status != Order.OrderStatus.COMPLETED || amount == null) {
+            return BigDecimal.ZERO;
+        }
+        return amount;
+    }
+
+    private void ensureSeeded() {
+        if (!seeded) {
+            reconcile();
+        }
+    }
+
+    private void increment(Order.OrderStatus status, long delta) {
+        if (status != null) {
+            counts.get(status).addAndGet(delta);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+}
@@ -0,0 +1,122 @@
+package com.flowershop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Несколько отчетов одним запросом: секции считаются параллельно
+ * на ограниченном пуле, у каждой свой таймаут. Ошибка, таймаут или отказ
+ * пула для одной секции не мешают вернуть остальные.
+ */
+@Service
+public class ReportBundleService {
+
+    private final Map<String, Supplier<Object>> sections = new LinkedHashMap<>();
+    private final long sectionTimeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    public ReportBundleService(ReportService reportService,
+                               OrderService orderService,
+                               @Value("${reports.bundle.threads:4}") int threads,
+                               @Value("${reports.bundle.queue-capacity:50}") int queueCapacity,
+                               @Value("${reports.bundle.section-timeout-ms:5000}") long sectionTimeoutMs) {
+        this.sectionTimeoutMs = sectionTimeoutMs;
+
+        sections.put("monthly-revenue", () -> reportService.getMonthlyRevenue(YearMonth.now().minusMonths(5), YearMonth.now()));
+        // load*-методы пробрасывают ошибку, поэтому сбой секции виден в ответе
+        sections.put("bouquet-stats", reportService::loadBouquetStatistics);
+        sections.put("user-activity", reportService::loadUserActivityReport);
+        sections.put("sales", reportService::loadSalesReport);
+        sections.put("order-status", () -> orderService.getStatusCounts().entrySet().stream()
+                .map(entry -> Map.<String, Object>of("status", entry.getKey().name(), "count", entry.getValue()))
+                .collect(Collectors.toList()));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // При переполнении очереди секция отклоняется: в потоке запроса таймаут не сработал бы
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-bundle-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Collection<String> getSectionNames() {
+        return sections.keySet();
+    }
+
+    /**
+     * Секции в запрошенном порядке; для каждой success и data либо message.
+     */
+    public Map<String, Object> load(List<String> names) {
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        for (String name : names) {
+            Supplier<Object> loader = sections.get(name);
+            if (loader == null) {
+                throw new IllegalArgumentException("Неизвестный раздел отчета: " + name
+                        + ". Доступны: " + String.join(", ", sections.keySet()));
+            }
+            futures.computeIfAbsent(name, key -> submit(loader));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        futures.forEach((name, future) -> result.put(name, collect(name, future)));
+        return result;
+    }
+
+    private CompletableFuture<Object> submit(Supplier<Object> loader) {
+        try {
+            return CompletableFuture.supplyAsync(loader, executor)
+                    .orTimeout(sectionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Map<String, Object> collect(String name, CompletableFuture<Object> future) {
+        Map<String, Object> section = new LinkedHashMap<>();
+        try {
+            Object data = future.join();
+            section.put("success", true);
+            section.put("data", data != null ? data : List.of());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            String message;
+            if (cause instanceof TimeoutException) {
+                message = "Превышено время ожидания (" + sectionTimeoutMs + " мс)";
+            } else if (cause instanceof RejectedExecutionException) {
+                message = "Сервер перегружен, повторите запрос позже";
+            } else {
+                message = cause.getMessage();
+            }
+            System.out.println("Report bundle section " + name + " failed: " + message);
+            section.put("success", false);
+            section.put("message", "Ошибка при получении данных: " + message);
+        }
+        return section;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,206 @@
+package com.flowershop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов отчетов с TTL и ограничением размера.
+ * На ключ одновременно работает только один загрузчик, остальные ждут его результат.
+ * После TTL значение ещё stale-окно отдаётся как есть, пока одна фоновая загрузка
+ * его обновляет. Изменения заказов не удаляют записи, а помечают их устаревшими:
+ * читатель получает прежнее значение, и оно обновляется в фоне. Серия изменений
+ * сводится к одной отметке времени, а запись обновляется не чаще min-refresh.
+ */
+@Component
+public class ReportCache {
+
+    private final Duration ttl;
+    private final Duration staleWindow;
+    private final Duration minRefresh;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    // Загрузка, начатая до очистки, не должна вернуть в кэш устаревший результат
+    private final AtomicLong generation = new AtomicLong();
+    // Записи, загрузка которых началась раньше этой отметки, устарели
+    private volatile long staleBefore = System.nanoTime();
+    private final ExecutorService refresher;
+
+    public ReportCache(@Value("${reports.cache.ttl-seconds:60}") long ttlSeconds,
+                       @Value("${reports.cache.stale-seconds:300}") long staleSeconds,
+                       @Value("${reports.cache.min-refresh-ms:2000}") long minRefreshMs,
+                       @Value("${reports.cache.max-entries:200}") int maxEntries) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.staleWindow = Duration.ofSeconds(staleSeconds);
+        this.minRefresh = Duration.ofMillis(minRefreshMs);
+        this.maxEntries = maxEntries;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refresher = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "report-cache-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Значение из кэша или результат загрузчика.
+     * Загрузчик не должен требовать транзакцию вызывающего: фоновое обновление
+     * выполняется в другом потоке.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            long age = now - entry.loadedAt;
+            boolean invalidated = entry.loadedAt - staleBefore < 0 && age >= minRefresh.toNanos();
+            if (age <= ttl.toNanos() && !invalidated) {
+                entry.lastAccess = now;
+                return (T) entry.value;
+            }
+            if (age <= ttl.plus(staleWindow).toNanos()) {
+                // Отдаём старое значение, обновление идёт в фоне одним загрузчиком
+                entry.lastAccess = now;
+                load(key, (Supplier<Object>) loader, true);
+                return (T) entry.value;
+            }
+        }
+
+        return (T) join(load(key, (Supplier<Object>) loader, false));
+    }
+
+    /**
+     * Помечает все записи устаревшими после коммита текущей транзакции
+     * (или сразу, если транзакции нет). Записи остаются в кэше и обновляются
+     * в фоне при следующем чтении.
+     */
+    public void markStale() {
+        afterCommit(() -> staleBefore = System.nanoTime());
+    }
+
+    /**
+     * Очищает кэш после коммита текущей транзакции (или сразу, если транзакции нет).
+     */
+    public void invalidateAll() {
+        afterCommit(this::clear);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private CompletableFuture<Object> load(String key, Supplier<Object> loader, boolean background) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        long startGeneration = generation.get();
+        Runnable task = () -> {
+            try {
+                // Время начала загрузки: изменение во время загрузки оставит запись устаревшей
+                long startedAt = System.nanoTime();
+                Object value = loader.get();
+                if (generation.get() == startGeneration) {
+                    put(key, value, startedAt);
+                }
+                created.complete(value);
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                loading.remove(key, created);
+            }
+        };
+
+        if (background) {
+            try {
+                refresher.execute(task);
+            } catch (Exception e) {
+                loading.remove(key, created);
+                created.completeExceptionally(e);
+            }
+        } else {
+            task.run();
+        }
+        return created;
+    }
+
+    private void put(String key, Object value, long loadedAt) {
+        entries.put(key, new Entry(value, loadedAt));
+
+        if (entries.size() > maxEntries) {
+            // Вытесняем давно не читанные записи
+            entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                    .limit(entries.size() - maxEntries)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entries::remove);
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException("Ошибка загрузки отчета: " + cause.getMessage(), cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long loadedAt;
+        volatile long lastAccess;
+
+        Entry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.flowershop.service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 
@@ -14,8 +15,17 @@ public interface ReportService {
 
     List<Map<String, Object>> getUserActivityReport();
 
+    // Те же отчеты без подмены ошибки пустым списком - для вызывающих, которым нужна причина сбоя
+    List<Map<String, Object>> loadSalesReport();
+
+    List<Map<String, Object>> loadBouquetStatistics();
+
+    List<Map<String, Object>> loadUserActivityReport();
+
     List<Map<String, Object>> calculateMonthlyRevenue(Integer year, Integer month);
 
+    List<Map<String, Object>> getMonthlyRevenue(YearMonth from, YearMonth to);
+
     List<Map<String, Object>> updatePricesByCategory(Long categoryId, BigDecimal percentageChange);
 
     List<Map<String, Object>> getDailySalesReport(LocalDate date);
@@ -27,4 +37,6 @@ public interface ReportService {
     Map<String, Object> getDashboardStatistics();
     List<Map<String, Object>> getSalesReportByDateRange(LocalDate startDate, LocalDate endDate);
 
+    List<Map<String, Object>> getDailySalesSummary(LocalDate startDate, LocalDate endDate);
+
 }
\ No newline at end of file
@@ -0,0 +1,438 @@
+package com.flowershop.service;
+
+import com.flowershop.entity.Order;
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инкрементальные агрегаты продаж: по дням, месяцам, букетам, категориям и покупателям.
+ * Заказ учитывается, пока он не удалён и не отменён; выручка завершённых
+ * заказов считается отдельно. Каждое изменение заказа сдвигает агрегаты
+ * на разницу между старым и новым состоянием в той же транзакции,
+ * поэтому отчёты читают только строки за запрошенные дни, а отчёты
+ * за всё время - готовые итоги (sales_*_total).
+ */
+@Service
+public class SalesRollupService {
+
+    // Знак (+1 / -1) передаётся параметром, так что один запрос и добавляет, и вычитает заказ.
+    // Многострочные upsert-ы идут по возрастанию ключа: так блокировки строк берутся в одном порядке
+    private static final String DAILY_SQL = """
+        INSERT INTO sales_daily (day, order_count, items_quantity, revenue, completed_count, completed_revenue)
+        SELECT CAST(o.created_at AS date),
+               ?,
+               ? * COALESCE((SELECT SUM(oi.quantity) FROM order_items oi WHERE oi.order_id = o.id), 0),
+               ? * COALESCE(o.total_amount, 0),
+               ?,
+               ? * COALESCE(o.total_amount, 0)
+        FROM orders o
+        WHERE o.id = ?
+        ON CONFLICT (day) DO UPDATE SET
+            order_count = sales_daily.order_count + EXCLUDED.order_count,
+            items_quantity = sales_daily.items_quantity + EXCLUDED.items_quantity,
+            revenue = sales_daily.revenue + EXCLUDED.revenue,
+            completed_count = sales_daily.completed_count + EXCLUDED.completed_count,
+            completed_revenue = sales_daily.completed_revenue + EXCLUDED.completed_revenue
+    """;
+
+    private static final String MONTHLY_SQL = """
+        INSERT INTO sales_monthly (month, order_count, revenue, completed_count, completed_revenue)
+        SELECT CAST(date_trunc('month', o.created_at) AS date),
+               ?,
+               ? * COALESCE(o.total_amount, 0),
+               ?,
+               ? * COALESCE(o.total_amount, 0)
+        FROM orders o
+        WHERE o.id = ?
+        ON CONFLICT (month) DO UPDATE SET
+            order_count = sales_monthly.order_count + EXCLUDED.order_count,
+            revenue = sales_monthly.revenue + EXCLUDED.revenue,
+            completed_count = sales_monthly.completed_count + EXCLUDED.completed_count,
+            completed_revenue = sales_monthly.completed_revenue + EXCLUDED.completed_revenue
+    """;
+
+    private static final String BOUQUET_SQL = """
+        INSERT INTO sales_daily_bouquet (day, bouquet_id, order_lines, quantity, revenue)
+        SELECT CAST(o.created_at AS date), oi.bouquet_id,
+               ? * COUNT(*), ? * SUM(oi.quantity), ? * COALESCE(SUM(oi.subtotal), 0)
+        FROM orders o
+        JOIN order_items oi ON oi.order_id = o.id
+        WHERE o.id = ?
+        GROUP BY CAST(o.created_at AS date), oi.bouquet_id
+        ORDER BY oi.bouquet_id
+        ON CONFLICT (day, bouquet_id) DO UPDATE SET
+            order_lines = sales_daily_bouquet.order_lines + EXCLUDED.order_lines,
+            quantity = sales_daily_bouquet.quantity + EXCLUDED.quantity,
+            revenue = sales_daily_bouquet.revenue + EXCLUDED.revenue
+    """;
+
+    private static final String CATEGORY_SQL = """
+        INSERT INTO sales_daily_category (day, category_id, order_lines, quantity, revenue)
+        SELECT CAST(o.created_at AS date), b.category_id,
+               ? * COUNT(*), ? * SUM(oi.quantity), ? * COALESCE(SUM(oi.subtotal), 0)
+        FROM orders o
+        JOIN order_items oi ON oi.order_id = o.id
+        JOIN bouquets b ON b.id = oi.bouquet_id
+        WHERE o.id = ? AND b.category_id IS NOT NULL
+        GROUP BY CAST(o.created_at AS date), b.category_id
+        ORDER BY b.category_id
+        ON CONFLICT (day, category_id) DO UPDATE SET
+            order_lines = sales_daily_category.order_lines + EXCLUDED.order_lines,
+            quantity = sales_daily_category.quantity + EXCLUDED.quantity,
+            revenue = sales_daily_category.revenue + EXCLUDED.revenue
+    """;
+
+    private static final String CUSTOMER_SQL = """
+        INSERT INTO sales_customer (user_id, order_count, total_spent, last_order_at)
+        SELECT o.user_id, ?, ? * COALESCE(o.total_amount, 0), o.created_at
+        FROM orders o
+        WHERE o.id = ? AND o.user_id IS NOT NULL
+        ON CONFLICT (user_id) DO UPDATE SET
+            order_count = sales_customer.order_count + EXCLUDED.order_count,
+            total_spent = sales_customer.total_spent + EXCLUDED.total_spent,
+            last_order_at = GREATEST(sales_customer.last_order_at, EXCLUDED.last_order_at)
+    """;
+
+    // GREATEST умеет только поднимать дату: когда заказ вычитается, последний заказ ищется заново
+    private static final String CUSTOMER_LAST_ORDER_SQL = """
+        UPDATE sales_customer s
+        SET last_order_at = (
+            SELECT MAX(o.created_at)
+            FROM orders o
+            WHERE o.user_id = s.user_id AND o.deleted = false AND o.status <> 'CANCELLED'
+        )
+        WHERE s.user_id = (SELECT user_id FROM orders WHERE id = ?)
+    """;
+
+    // Итоги за всё время ведутся теми же знаковыми upsert-ами, что и дневные строки
+    private static final String BOUQUET_TOTAL_SQL = """
+        INSERT INTO sales_bouquet_total (bouquet_id, order_lines, quantity, revenue)
+        SELECT oi.bouquet_id, ? * COUNT(*), ? * SUM(oi.quantity), ? * COALESCE(SUM(oi.subtotal), 0)
+        FROM order_items oi
+        WHERE oi.order_id = ?
+        GROUP BY oi.bouquet_id
+        ORDER BY oi.bouquet_id
+        ON CONFLICT (bouquet_id) DO UPDATE SET
+            order_lines = sales_bouquet_total.order_lines + EXCLUDED.order_lines,
+            quantity = sales_bouquet_total.quantity + EXCLUDED.quantity,
+            revenue = sales_bouquet_total.revenue + EXCLUDED.revenue
+    """;
+
+    private static final String CATEGORY_TOTAL_SQL = """
+        INSERT INTO sales_category_total (category_id, order_lines, quantity, revenue)
+        SELECT b.category_id, ? * COUNT(*), ? * SUM(oi.quantity), ? * COALESCE(SUM(oi.subtotal), 0)
+        FROM order_items oi
+        JOIN bouquets b ON b.id = oi.bouquet_id
+        WHERE oi.order_id = ? AND b.category_id IS NOT NULL
+        GROUP BY b.category_id
+        ORDER BY b.category_id
+        ON CONFLICT (category_id) DO UPDATE SET
+            order_lines = sales_category_total.order_lines + EXCLUDED.order_lines,
+            quantity = sales_category_total.quantity + EXCLUDED.quantity,
+            revenue = sales_category_total.revenue + EXCLUDED.revenue
+    """;
+
+    private static final String TOTAL_SQL = """
+        INSERT INTO sales_total (id, order_count, revenue, completed_count, completed_revenue)
+        SELECT 1,
+               ?,
+               ? * COALESCE(o.total_amount, 0),
+               ?,
+               ? * COALESCE(o.total_amount, 0)
+        FROM orders o
+        WHERE o.id = ?
+        ON CONFLICT (id) DO UPDATE SET
+            order_count = sales_total.order_count + EXCLUDED.order_count,
+            revenue = sales_total.revenue + EXCLUDED.revenue,
+            completed_count = sales_total.completed_count + EXCLUDED.completed_count,
+            completed_revenue = sales_total.completed_revenue + EXCLUDED.completed_revenue
+    """;
+
+    // Итоги за всё время складываются из уже посчитанных дней
+    private static final String[] TOTALS_FROM_DAILY_SQL = {
+        """
+        INSERT INTO sales_bouquet_total (bouquet_id, order_lines, quantity, revenue)
+        SELECT bouquet_id, SUM(order_lines), SUM(quantity), SUM(revenue)
+        FROM sales_daily_bouquet
+        GROUP BY bouquet_id
+        """,
+        """
+        INSERT INTO sales_category_total (category_id, order_lines, quantity, revenue)
+        SELECT category_id, SUM(order_lines), SUM(quantity), SUM(revenue)
+        FROM sales_daily_category
+        GROUP BY category_id
+        """,
+        """
+        INSERT INTO sales_total (id, order_count, revenue, completed_count, completed_revenue)
+        SELECT 1, COALESCE(SUM(order_count), 0), COALESCE(SUM(revenue), 0),
+               COALESCE(SUM(completed_count), 0), COALESCE(SUM(completed_revenue), 0)
+        FROM sales_daily
+        """
+    };
+
+    // Месяцы складываются из уже посчитанных дней
+    private static final String MONTHLY_FROM_DAILY_SQL = """
+        INSERT INTO sales_monthly (month, order_count, revenue, completed_count, completed_revenue)
+        SELECT CAST(date_trunc('month', d.day) AS date),
+               SUM(d.order_count), SUM(d.revenue), SUM(d.completed_count), SUM(d.completed_revenue)
+        FROM sales_daily d
+        GROUP BY CAST(date_trunc('month', d.day) AS date)
+        """;
+
+    // Полный пересчёт - только для первого запуска на существующей истории заказов
+    private static final String[] REBUILD_SQL = {
+        "TRUNCATE sales_daily, sales_monthly, sales_daily_bouquet, sales_daily_category, sales_customer, "
+            + "sales_bouquet_total, sales_category_total, sales_total",
+        """
+        INSERT INTO sales_daily (day, order_count, items_quantity, revenue, completed_count, completed_revenue)
+        SELECT CAST(o.created_at AS date),
+               COUNT(*),
+               COALESCE(SUM(q.quantity), 0),
+               COALESCE(SUM(o.total_amount), 0),
+               COUNT(*) FILTER (WHERE o.status = 'COMPLETED'),
+               COALESCE(SUM(o.total_amount) FILTER (WHERE o.status = 'COMPLETED'), 0)
+        FROM orders o
+        LEFT JOIN (SELECT order_id, SUM(quantity) AS quantity FROM order_items GROUP BY order_id) q
+               ON q.order_id = o.id
+        WHERE o.deleted = false AND o.status <> 'CANCELLED'
+        GROUP BY CAST(o.created_at AS date)
+        """,
+        MONTHLY_FROM_DAILY_SQL,
+        """
+        INSERT INTO sales_daily_bouquet (day, bouquet_id, order_lines, quantity, revenue)
+        SELECT CAST(o.created_at AS date), oi.bouquet_id, COUNT(*), SUM(oi.quantity), COALESCE(SUM(oi.subtotal), 0)
+        FROM orders o
+        JOIN order_items oi ON oi.order_id = o.id
+        WHERE o.deleted = false AND o.status <> 'CANCELLED'
+        GROUP BY CAST(o.created_at AS date), oi.bouquet_id
+        """,
+        """
+        INSERT INTO sales_daily_category (day, category_id, order_lines, quantity, revenue)
+        SELECT CAST(o.created_at AS date), b.category_id, COUNT(*), SUM(oi.quantity), COALESCE(SUM(oi.subtotal), 0)
+        FROM orders o
+        JOIN order_items oi ON oi.order_id = o.id
+        JOIN bouquets b ON b.id = oi.bouquet_id
+        WHERE o.deleted = false AND o.status <> 'CANCELLED' AND b.category_id IS NOT NULL
+        GROUP BY CAST(o.created_at AS date), b.category_id
+        """,
+        """
+        INSERT INTO sales_customer (user_id, order_count, total_spent, last_order_at)
+        SELECT o.user_id, COUNT(*), COALESCE(SUM(o.total_amount), 0), MAX(o.created_at)
+        FROM orders o
+        WHERE o.deleted = false AND o.status <> 'CANCELLED' AND o.user_id IS NOT NULL
+        GROUP BY o.user_id
+        """
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportCache reportCache;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate,
+                              DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              ReportCache reportCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reportCache = reportCache;
+    }
+
+    /**
+     * Создаёт таблицы агрегатов и заполняет их, если история заказов
+     * появилась раньше, чем агрегаты. Выполняется при создании бина (схему к этому
+     * моменту уже обновил Hibernate), то есть до приёма запросов: иначе первые
+     * заказы сдвигали бы агрегаты, которые затем перестроятся заново.
+     */
+    @PostConstruct
+    public void initialize() {
+        try {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("db/rollups.sql"));
+            populator.setSqlScriptEncoding("UTF-8");
+            populator.execute(dataSource);
+
+            Boolean needsRebuild = jdbcTemplate.queryForObject("""
+                SELECT NOT EXISTS (SELECT 1 FROM sales_daily)
+                   AND EXISTS (SELECT 1 FROM orders WHERE deleted = false AND status <> 'CANCELLED')
+            """, Boolean.class);
+            if (Boolean.TRUE.equals(needsRebuild)) {
+                rebuild();
+            } else {
+                backfillMonthly();
+                backfillTotals();
+            }
+        } catch (Exception e) {
+            System.err.println("Sales rollup initialization failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Пересчитывает все агрегаты из заказов.
+     */
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String sql : REBUILD_SQL) {
+                jdbcTemplate.update(sql);
+            }
+            for (String sql : TOTALS_FROM_DAILY_SQL) {
+                jdbcTemplate.update(sql);
+            }
+        });
+        reportCache.invalidateAll();
+        System.out.println("Sales rollups rebuilt");
+    }
+
+    // Месячные агрегаты появились позже дневных: заполняем их один раз из sales_daily
+    private void backfillMonthly() {
+        Boolean missing = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM sales_monthly) AND EXISTS (SELECT 1 FROM sales_daily)",
+                Boolean.class);
+        if (Boolean.TRUE.equals(missing)) {
+            jdbcTemplate.update(MONTHLY_FROM_DAILY_SQL);
+            System.out.println("Monthly sales rollups backfilled");
+        }
+    }
+
+    // Итоги за всё время появились позже дневных: заполняем их один раз из дневных строк
+    private void backfillTotals() {
+        Boolean missing = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM sales_total) AND EXISTS (SELECT 1 FROM sales_daily)",
+                Boolean.class);
+        if (Boolean.TRUE.equals(missing)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (String sql : TOTALS_FROM_DAILY_SQL) {
+                    jdbcTemplate.update(sql);
+                }
+            });
+            System.out.println("Sales totals backfilled");
+        }
+    }
+
+    /**
+     * Учитывает новый заказ. Заказ и его позиции уже должны быть сброшены в БД (flush).
+     * Агрегаты - горячие строки (сегодняшний день, общие итоги), поэтому вызывать
+     * последней записью транзакции, после списания остатков: блокировка держится до коммита.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        ordersCreated(List.of(order));
+    }
+
+    /**
+     * То же для пачки заказов (очередь оформления): каждый запрос агрегатов
+     * уходит одним JDBC-пакетом на все заказы.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ordersCreated(List<Order> orders) {
+        reportCache.markStale();
+        List<Change> changes = new ArrayList<>();
+        for (Order order : orders) {
+            changes.add(new Change(order.getId(), weight(order.getStatus(), order.getDeleted()),
+                    completedWeight(order.getStatus(), order.getDeleted())));
+        }
+        apply(changes);
+    }
+
+    /**
+     * Переносит заказ из прежнего состояния в текущее.
+     * Заказ уже должен быть сброшен в БД (flush). Как и orderCreated - последней записью транзакции.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderChanged(Order order, Order.OrderStatus previousStatus, Boolean previouslyDeleted) {
+        // Счетчики статусов на дашборде меняются даже без изменения агрегатов
+        reportCache.markStale();
+        apply(List.of(new Change(order.getId(),
+                weight(order.getStatus(), order.getDeleted()) - weight(previousStatus, previouslyDeleted),
+                completedWeight(order.getStatus(), order.getDeleted()) - completedWeight(previousStatus, previouslyDeleted))));
+    }
+
+    /**
+     * То же для многих заказов (массовая смена статуса): каждый запрос
+     * агрегатов уходит одним JDBC-пакетом на все заказы.
+     * Заказы не удалены и уже изменены в БД.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ordersChanged(List<Order> orders, Map<Long, Order.OrderStatus> previousStatuses) {
+        reportCache.markStale();
+        List<Change> changes = new ArrayList<>();
+        for (Order order : orders) {
+            Order.OrderStatus previousStatus = previousStatuses.get(order.getId());
+            changes.add(new Change(order.getId(),
+                    weight(order.getStatus(), false) - weight(previousStatus, false),
+                    completedWeight(order.getStatus(), false) - completedWeight(previousStatus, false)));
+        }
+        apply(changes);
+    }
+
+    // Все пути пишут таблицы в одном порядке, а заказы - по возрастанию id,
+    // поэтому параллельные транзакции берут блокировки строк агрегатов в одном порядке
+    private void apply(List<Change> changes) {
+        List<Object[]> daily = new ArrayList<>();
+        List<Object[]> monthly = new ArrayList<>();
+        List<Object[]> total = new ArrayList<>();
+        List<Object[]> lines = new ArrayList<>();
+        List<Object[]> customer = new ArrayList<>();
+        List<Object[]> lastOrder = new ArrayList<>();
+
+        changes.stream().sorted(Comparator.comparing(Change::orderId)).forEach(change -> {
+            int delta = change.delta();
+            int completedDelta = change.completedDelta();
+            if (delta == 0 && completedDelta == 0) {
+                return;
+            }
+            daily.add(new Object[]{delta, delta, delta, completedDelta, completedDelta, change.orderId()});
+            monthly.add(new Object[]{delta, delta, completedDelta, completedDelta, change.orderId()});
+            total.add(new Object[]{delta, delta, completedDelta, completedDelta, change.orderId()});
+            if (delta != 0) {
+                lines.add(new Object[]{delta, delta, delta, change.orderId()});
+                customer.add(new Object[]{delta, delta, change.orderId()});
+            }
+            if (delta < 0) {
+                lastOrder.add(new Object[]{change.orderId()});
+            }
+        });
+
+        batchUpdate(DAILY_SQL, daily);
+        batchUpdate(MONTHLY_SQL, monthly);
+        batchUpdate(TOTAL_SQL, total);
+        batchUpdate(BOUQUET_SQL, lines);
+        batchUpdate(CATEGORY_SQL, lines);
+        batchUpdate(BOUQUET_TOTAL_SQL, lines);
+        batchUpdate(CATEGORY_TOTAL_SQL, lines);
+        batchUpdate(CUSTOMER_SQL, customer);
+        batchUpdate(CUSTOMER_LAST_ORDER_SQL, lastOrder);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> args) {
+        if (args.size() == 1) {
+            jdbcTemplate.update(sql, args.get(0));
+        } else if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, args);
+        }
+    }
+
+    private static int weight(Order.OrderStatus status, Boolean deleted) {
+        return !Boolean.TRUE.equals(deleted) && status != null && status != Order.OrderStatus.CANCELLED ? 1 : 0;
+    }
+
+    private static int completedWeight(Order.OrderStatus status, Boolean deleted) {
+        return !Boolean.TRUE.equals(deleted) && status == Order.OrderStatus.COMPLETED ? 1 : 0;
+    }
+
+    // Сдвиг агрегатов для одного заказа: +1 / -1 / 0 по учёту заказа и по завершённым
+    private record Change(Long orderId, int delta, int completedDelta) {}
+}
@@ -0,0 +1,185 @@
+package com.flowershop.service;
+
+import com.flowershop.exception.StockReservationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Резервирование остатков букетов одним SQL-запросом на всю корзину.
+ * Списание условное (stock_quantity >= qty), поэтому параллельные заказы
+ * не могут уйти в минус, а in_stock переключается в том же UPDATE.
+ */
+@Service
+public class StockReservationService {
+
+    // Строки блокируются в порядке id, чтобы две корзины с общими букетами не взаимоблокировались
+    private static final String RESERVE_SQL = """
+        WITH req AS (
+            SELECT r.bouquet_id, r.qty
+            FROM unnest(?::bigint[], ?::int[]) AS r(bouquet_id, qty)
+        ), locked AS (
+            SELECT b.id FROM bouquets b
+            WHERE b.id IN (SELECT bouquet_id FROM req)
+            ORDER BY b.id
+            FOR UPDATE
+        )
+        UPDATE bouquets b
+        SET stock_quantity = b.stock_quantity - req.qty,
+            in_stock = (b.stock_quantity - req.qty) > 0,
+            updated_at = CURRENT_TIMESTAMP
+        FROM req
+        WHERE b.id = req.bouquet_id
+          AND b.id IN (SELECT id FROM locked)
+          AND b.deleted = false
+          AND b.in_stock = true
+          AND b.stock_quantity >= req.qty
+        RETURNING b.id, b.stock_quantity
+    """;
+
+    private static final String RELEASE_SQL = """
+        UPDATE bouquets b
+        SET stock_quantity = b.stock_quantity + req.qty,
+            in_stock = (b.stock_quantity + req.qty) > 0,
+            updated_at = CURRENT_TIMESTAMP
+        FROM unnest(?::bigint[], ?::int[]) AS req(bouquet_id, qty)
+        WHERE b.id = req.bouquet_id
+        RETURNING b.id, b.stock_quantity
+    """;
+
+    private static final String AVAILABILITY_SQL = """
+        SELECT b.id, b.name, b.stock_quantity, b.in_stock, b.deleted
+        FROM bouquets b
+        WHERE b.id = ANY(?::bigint[])
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final BouquetSearchIndex bouquetSearchIndex;
+
+    public StockReservationService(JdbcTemplate jdbcTemplate,
+                                   CatalogSnapshotService catalogSnapshotService,
+                                   BouquetSearchIndex bouquetSearchIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.bouquetSearchIndex = bouquetSearchIndex;
+    }
+
+    /**
+     * Списывает остатки по всем позициям сразу.
+     * Если хотя бы одной позиции не хватает, бросает StockReservationException
+     * со списком нехваток, и вызывающая транзакция откатывает всё списание.
+     *
+     * @param quantities bouquetId -> запрошенное количество
+     * @return bouquetId -> остаток после списания
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> reserve(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Integer> requested = new TreeMap<>(quantities);
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Количество должно быть больше 0 для букета " + entry.getKey());
+            }
+        }
+
+        Map<Long, Integer> remaining = execute(RESERVE_SQL, requested);
+
+        if (remaining.size() != requested.size()) {
+            throw new StockReservationException(findShortfalls(requested, remaining));
+        }
+        catalogSnapshotService.applyStock(remaining);
+        bouquetSearchIndex.applyStock(remaining);
+        return remaining;
+    }
+
+    /**
+     * Возвращает остатки на склад (отмена заказа).
+     *
+     * @return bouquetId -> остаток после возврата
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> release(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Integer> remaining = execute(RELEASE_SQL, new TreeMap<>(quantities));
+        catalogSnapshotService.applyStock(remaining);
+        bouquetSearchIndex.applyStock(remaining);
+        return remaining;
+    }
+
+    private Map<Long, Integer> execute(String sql, Map<Long, Integer> quantities) {
+        Long[] ids = quantities.keySet().toArray(new Long[0]);
+        Integer[] qtys = quantities.values().toArray(new Integer[0]);
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<Long, Integer>>) connection -> {
+            Array idArray = connection.createArrayOf("bigint", ids);
+            Array qtyArray = connection.createArrayOf("integer", qtys);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setArray(1, idArray);
+                ps.setArray(2, qtyArray);
+                Map<Long, Integer> result = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        result.put(rs.getLong(1), rs.getInt(2));
+                    }
+                }
+                return result;
+            } finally {
+                idArray.free();
+                qtyArray.free();
+            }
+        });
+    }
+
+    // Вызывается только на неуспешном пути, поэтому лишний запрос не влияет на обычный заказ
+    private List<StockReservationException.Shortfall> findShortfalls(Map<Long, Integer> requested,
+                                                                    Map<Long, Integer> reserved) {
+        Long[] missing = requested.keySet().stream()
+                .filter(id -> !reserved.containsKey(id))
+                .toArray(Long[]::new);
+
+        Map<Long, StockReservationException.Shortfall> byId = new HashMap<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Array idArray = connection.createArrayOf("bigint", missing);
+            try (PreparedStatement ps = connection.prepareStatement(AVAILABILITY_SQL)) {
+                ps.setArray(1, idArray);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong("id");
+                        boolean sellable = rs.getBoolean("in_stock") && !rs.getBoolean("deleted");
+                        int available = sellable ? rs.getInt("stock_quantity") : 0;
+                        byId.put(id, new StockReservationException.Shortfall(
+                                id, rs.getString("name"), requested.get(id), available));
+                    }
+                }
+            } finally {
+                idArray.free();
+            }
+            return null;
+        });
+
+        List<StockReservationException.Shortfall> shortfalls = new ArrayList<>();
+        for (Long id : missing) {
+            shortfalls.add(byId.getOrDefault(id,
+                    new StockReservationException.Shortfall(id, null, requested.get(id), 0)));
+        }
+        return shortfalls;
+    }
+}
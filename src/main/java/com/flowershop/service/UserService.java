@@ -1,6 +1,8 @@
 package com.flowershop.service;
 
+import com.flowershop.dto.CursorPage;
 import com.flowershop.dto.UserRegistrationDto;
+import com.flowershop.dto.UserRowView;
 import com.flowershop.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -26,6 +28,8 @@ public interface UserService extends UserDetailsService {
     boolean existsByEmail(String email);
     void changeUserRole(Long userId, String roleName);
     Page<User> findBySearch(String search, Pageable pageable);
+    CursorPage<UserRowView> scrollBySearch(String search, String cursor, int size, boolean withCount);
+    Page<UserRowView> findAllRows(Pageable pageable);
     Page<User> findByRole(String role, Pageable pageable);
 
     User saveWithEncryption(UserRegistrationDto registrationDto);
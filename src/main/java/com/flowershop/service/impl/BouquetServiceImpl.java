@@ -1,14 +1,26 @@
 package com.flowershop.service.impl;
 
+import com.flowershop.dto.BouquetCardView;
 import com.flowershop.dto.BouquetDto;
+import com.flowershop.dto.BouquetFilter;
+import com.flowershop.dto.CursorPage;
 import com.flowershop.entity.Bouquet;
 import com.flowershop.entity.Category;
 import com.flowershop.repository.BouquetRepository;
+import com.flowershop.repository.BouquetSpecifications;
 import com.flowershop.repository.CategoryRepository;
 import com.flowershop.service.AuditService;
+import com.flowershop.service.BouquetSearchIndex;
 import com.flowershop.service.BouquetService;
+import com.flowershop.service.CatalogSnapshotService;
+import com.flowershop.util.KeysetCursor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,21 +29,35 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Transactional
 public class BouquetServiceImpl implements BouquetService {
 
+    // Только столбцы с NOT NULL: предикат keyset (col > ?) теряет строки с NULL.
+    // created_at, updated_at и stock_quantity допускают NULL, поэтому их здесь нет
+    private static final Set<String> SCROLL_SORT_PROPERTIES = Set.of("id", "name", "price");
+
+    // Сколько лучших совпадений уходит в запрос при сортировке по релевантности: дальше не листают
+    private static final int MAX_SEARCH_HITS = 500;
+
     private final BouquetRepository bouquetRepository;
     private final CategoryRepository categoryRepository;
     private final AuditService auditService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final BouquetSearchIndex bouquetSearchIndex;
 
     public BouquetServiceImpl(BouquetRepository bouquetRepository,
                               CategoryRepository categoryRepository,
-                              AuditService auditService) {
+                              AuditService auditService,
+                              CatalogSnapshotService catalogSnapshotService,
+                              BouquetSearchIndex bouquetSearchIndex) {
         this.bouquetRepository = bouquetRepository;
         this.categoryRepository = categoryRepository;
         this.auditService = auditService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.bouquetSearchIndex = bouquetSearchIndex;
     }
 
     @Override
@@ -57,6 +83,8 @@ public class BouquetServiceImpl implements BouquetService {
                 savedBouquet.getInStock());
 
         auditService.logAction("bouquets", savedBouquet.getId(), "CREATE", null, newData, getCurrentUsername());
+        catalogSnapshotService.invalidate();
+        bouquetSearchIndex.index(savedBouquet);
 
         return savedBouquet;
     }
@@ -92,6 +120,8 @@ public class BouquetServiceImpl implements BouquetService {
                 updatedBouquet.getInStock());
 
         auditService.logAction("bouquets", updatedBouquet.getId(), "UPDATE", oldData, newData, getCurrentUsername());
+        catalogSnapshotService.invalidate();
+        bouquetSearchIndex.index(updatedBouquet);
 
         return updatedBouquet;
     }
@@ -110,6 +140,8 @@ public class BouquetServiceImpl implements BouquetService {
 
         bouquet.setDeleted(true);
         bouquetRepository.save(bouquet);
+        catalogSnapshotService.invalidate();
+        bouquetSearchIndex.index(bouquet);
     }
 
 
@@ -126,6 +158,8 @@ public class BouquetServiceImpl implements BouquetService {
 
         bouquet.setDeleted(false);
         bouquetRepository.save(bouquet);
+        catalogSnapshotService.invalidate();
+        bouquetSearchIndex.index(bouquet);
     }
 
     @Override
@@ -156,9 +190,50 @@ public class BouquetServiceImpl implements BouquetService {
         return bouquetRepository.findAllWithCategory(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BouquetCardView> scroll(String cursor, int size, Sort sort, boolean withCount) {
+        for (Sort.Order order : sort) {
+            if (!SCROLL_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Сортировка по полю " + order.getProperty() + " не поддерживается");
+            }
+        }
+        // id в конце делает порядок строгим, иначе ключ курсора неоднозначен
+        Sort keysetSort = sort.getOrderFor("id") != null ? sort : sort.and(Sort.by("id"));
+        ScrollPosition position = KeysetCursor.decode(cursor, keysetSort, Bouquet.class);
+
+        Specification<Bouquet> spec = (root, query, cb) -> cb.conjunction();
+        Window<Bouquet> window = bouquetRepository.findBy(spec,
+                q -> q.sortBy(keysetSort).limit(size).project("category").scroll(position));
+        Long total = withCount ? bouquetRepository.count() : null;
+        CursorPage<Bouquet> page = KeysetCursor.toPage(window, keysetSort, total);
+        return new CursorPage<>(page.getContent().stream().map(BouquetCardView::from).toList(),
+                page.getNextCursor(), page.isHasNext(), page.getSize(), page.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BouquetCardView> findAllCards(Pageable pageable) {
+        return bouquetRepository.findAllCards(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BouquetCardView> findActiveCards(Pageable pageable) {
+        Page<Bouquet> cached = catalogSnapshotService.findActive(null, pageable);
+        if (cached != null) {
+            return cached.map(BouquetCardView::from);
+        }
+        return bouquetRepository.findActiveCards(pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<Bouquet> findActiveBouquets(Pageable pageable) {
+        Page<Bouquet> cached = catalogSnapshotService.findActive(null, pageable);
+        if (cached != null) {
+            return cached;
+        }
         return bouquetRepository.findActiveBouquetsWithCategory(pageable);
     }
 
@@ -176,6 +251,10 @@ public class BouquetServiceImpl implements BouquetService {
 
     @Override
     public List<Bouquet> searchBouquets(String search) {
+        List<Bouquet> found = bouquetSearchIndex.search(search, null, false);
+        if (found != null) {
+            return found;
+        }
         return bouquetRepository.searchBouquets(search);
     }
 
@@ -207,28 +286,46 @@ public class BouquetServiceImpl implements BouquetService {
                 updatedBouquet.getStockQuantity(), updatedBouquet.getInStock());
 
         auditService.logAction("bouquets", updatedBouquet.getId(), "UPDATE", oldData, newData, getCurrentUsername());
+        catalogSnapshotService.invalidate();
+        bouquetSearchIndex.index(updatedBouquet);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<Bouquet> findByCategoryId(Long categoryId, Pageable pageable) {
+        Page<Bouquet> cached = catalogSnapshotService.findActive(categoryId, pageable);
+        if (cached != null) {
+            return cached;
+        }
         return bouquetRepository.findByCategoryIdWithCategory(categoryId, pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<Bouquet> findBySearch(String search, Pageable pageable) {
+        Page<Bouquet> found = bouquetSearchIndex.search(search, null, true, pageable);
+        if (found != null) {
+            return found;
+        }
         return bouquetRepository.searchWithCategory(search, pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<Bouquet> findByCategoryIdAndSearch(Long categoryId, String search, Pageable pageable) {
+        Page<Bouquet> found = bouquetSearchIndex.search(search, categoryId, true, pageable);
+        if (found != null) {
+            return found;
+        }
         return bouquetRepository.findByCategoryIdAndSearchWithCategory(categoryId, search, pageable);
     }
 
     @Override
     public Page<Bouquet> findBySearchIncludeDeleted(String search, Pageable pageable) {
+        Page<Bouquet> found = bouquetSearchIndex.search(search, null, false, pageable);
+        if (found != null) {
+            return found;
+        }
         return bouquetRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(search, search, pageable);
     }
 
@@ -249,9 +346,34 @@ public class BouquetServiceImpl implements BouquetService {
     @Override
     @Transactional(readOnly = true)
     public Page<Bouquet> findBySearchAndCategory(String search, Long categoryId, Pageable pageable) {
+        Page<Bouquet> found = bouquetSearchIndex.search(search, categoryId, false, pageable);
+        if (found != null) {
+            return found;
+        }
         return bouquetRepository.findBySearchAndCategory(search, categoryId, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Bouquet> findByFilter(BouquetFilter filter, Pageable pageable) {
+        // Текст ищем по индексу с теми же условиями фильтра, а найденные id становятся
+        // ещё одним предикатом того же запроса и задают порядок, если сортировка не выбрана.
+        // Обрезаем только выдачу по релевантности: при сортировке по полю нужны все совпадения
+        List<Long> matchedIds = null;
+        if (filter.hasSearch()) {
+            List<Bouquet> found = bouquetSearchIndex.search(filter.getSearch(), filter);
+            if (found != null) {
+                int limit = pageable.getSort().isUnsorted() ? MAX_SEARCH_HITS : found.size();
+                matchedIds = found.stream().limit(limit).map(Bouquet::getId).toList();
+            }
+        }
+        if (matchedIds == null && pageable.getSort().isUnsorted() && pageable.isPaged()) {
+            // Без индекса ранга нет: страницам нужен устойчивый порядок
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        }
+        return bouquetRepository.findAll(BouquetSpecifications.byFilter(filter, matchedIds), pageable);
+    }
+
     /**
      * Получает имя текущего аутентифицированного пользователя
      */
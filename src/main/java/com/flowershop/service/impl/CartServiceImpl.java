@@ -1,14 +1,23 @@
     package com.flowershop.service.impl;
 
     import com.flowershop.dto.AddToCartRequest;
+    import com.flowershop.dto.CartBatchRequest;
     import com.flowershop.dto.CartDto;
     import com.flowershop.dto.CartItemDto;
+    import com.flowershop.dto.CartLineView;
     import com.flowershop.entity.*;
     import com.flowershop.repository.*;
+    import com.flowershop.service.CartCountCache;
     import com.flowershop.service.CartService;
     import org.springframework.stereotype.Service;
+    import org.springframework.transaction.annotation.Propagation;
     import org.springframework.transaction.annotation.Transactional;
 
+    import java.util.HashMap;
+    import java.util.List;
+    import java.util.Map;
+    import java.util.Set;
+    import java.util.function.Function;
     import java.util.stream.Collectors;
 
     @Service
@@ -19,15 +28,18 @@
         private final CartItemRepository cartItemRepository;
         private final UserRepository userRepository;
         private final BouquetRepository bouquetRepository;
+        private final CartCountCache cartCountCache;
 
         public CartServiceImpl(CartRepository cartRepository,
                                CartItemRepository cartItemRepository,
                                UserRepository userRepository,
-                               BouquetRepository bouquetRepository) {
+                               BouquetRepository bouquetRepository,
+                               CartCountCache cartCountCache) {
             this.cartRepository = cartRepository;
             this.cartItemRepository = cartItemRepository;
             this.userRepository = userRepository;
             this.bouquetRepository = bouquetRepository;
+            this.cartCountCache = cartCountCache;
         }
 
         @Override
@@ -46,21 +58,29 @@
         public CartDto getCartForUser(Long userId) {
             System.out.println("=== GET CART FOR USER: " + userId + " ===");
 
-            Cart cart = cartRepository.findByUserIdWithItems(userId)
-                    .orElseGet(() -> getOrCreateCartForUser(userId));
+            // Корзина, позиции и букеты - одним запросом, без загрузки сущностей
+            List<CartLineView> lines = cartRepository.findLinesByUserId(userId);
+            if (lines.isEmpty()) {
+                CartDto dto = new CartDto(userId);
+                dto.setId(getOrCreateCartForUser(userId).getId());
+                return dto;
+            }
 
-            System.out.println("Cart found: " + cart.getId());
-            System.out.println("Items count: " + (cart.getItems() != null ? cart.getItems().size() : "null"));
+            CartDto dto = new CartDto(userId);
+            dto.setId(lines.get(0).getCartId());
+            dto.setTotalAmount(lines.get(0).getCartTotal());
+            dto.setItems(lines.stream()
+                    .filter(line -> line.getItemId() != null)
+                    .map(this::convertLineToDto)
+                    .collect(Collectors.toList()));
 
-            CartDto dto = convertToDto(cart);
             System.out.println("DTO totalItems: " + dto.getTotalItems());
-
             return dto;
         }
 
         @Override
         public CartDto addToCart(Long userId, AddToCartRequest request) {
-            Cart cart = getOrCreateCartForUser(userId);
+            Cart cart = getCartWithBouquets(userId);
             Bouquet bouquet = bouquetRepository.findById(request.getBouquetId())
                     .orElseThrow(() -> new RuntimeException("Букет не найден"));
 
@@ -72,21 +92,11 @@
                 throw new RuntimeException("Количество должно быть больше 0");
             }
 
-            // Проверяем, есть ли уже такой букет в корзине
-            CartItem existingItem = cartItemRepository.findByCartIdAndBouquetId(cart.getId(), bouquet.getId())
-                    .orElse(null);
-
-            if (existingItem != null) {
-                // Обновляем количество
-                existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
-            } else {
-                // Создаем новый элемент
-                CartItem newItem = new CartItem(cart, bouquet, request.getQuantity());
-                cart.addItem(newItem);
-            }
+            // Если букет уже в корзине, addItem увеличит количество
+            cart.addItem(new CartItem(cart, bouquet, request.getQuantity()));
 
-            cart.calculateTotal();
             cartRepository.save(cart);
+            updateCount(userId, cart);
 
             return convertToDto(cart);
         }
@@ -97,24 +107,27 @@
                 return removeFromCart(userId, bouquetId);
             }
 
-            Cart cart = getOrCreateCartForUser(userId);
-            CartItem item = cartItemRepository.findByCartIdAndBouquetId(cart.getId(), bouquetId)
+            Cart cart = getCartWithBouquets(userId);
+            CartItem item = cart.getItems().stream()
+                    .filter(i -> i.getBouquet().getId().equals(bouquetId))
+                    .findFirst()
                     .orElseThrow(() -> new RuntimeException("Элемент корзины не найден"));
 
             item.setQuantity(quantity);
             cart.calculateTotal();
             cartRepository.save(cart);
+            updateCount(userId, cart);
 
             return convertToDto(cart);
         }
 
         @Override
         public CartDto removeFromCart(Long userId, Long bouquetId) {
-            Cart cart = getOrCreateCartForUser(userId);
+            // Позиция удаляется при flush (orphanRemoval)
+            Cart cart = getCartWithBouquets(userId);
             cart.removeItem(bouquetId);
             cartRepository.save(cart);
-
-            cartItemRepository.deleteByCartIdAndBouquetId(cart.getId(), bouquetId);
+            updateCount(userId, cart);
 
             return convertToDto(cart);
         }
@@ -125,28 +138,109 @@
             cart.clear();
             cartRepository.save(cart);
             cartItemRepository.deleteByCartId(cart.getId());
+            cartCountCache.set(userId, 0);
         }
 
         @Override
-        @Transactional(readOnly = true)
+        public CartDto applyBatch(Long userId, List<CartBatchRequest.Operation> operations) {
+            // Корзина с букетами и все добавляемые букеты - по одному запросу
+            Cart cart = getCartWithBouquets(userId);
+
+            Set<Long> addedIds = operations.stream()
+                    .filter(op -> op.getType() == CartBatchRequest.OperationType.ADD)
+                    .map(CartBatchRequest.Operation::getBouquetId)
+                    .collect(Collectors.toSet());
+            Map<Long, Bouquet> bouquets = addedIds.isEmpty() ? Map.of()
+                    : bouquetRepository.findAllWithCategoryByIdIn(addedIds).stream()
+                            .collect(Collectors.toMap(Bouquet::getId, Function.identity()));
+
+            Map<Long, CartItem> itemsByBouquet = new HashMap<>();
+            for (CartItem item : cart.getItems()) {
+                itemsByBouquet.put(item.getBouquet().getId(), item);
+            }
+
+            for (CartBatchRequest.Operation op : operations) {
+                Long bouquetId = op.getBouquetId();
+                Integer quantity = op.getQuantity();
+
+                switch (op.getType()) {
+                    case ADD -> {
+                        Bouquet bouquet = bouquets.get(bouquetId);
+                        if (bouquet == null) {
+                            throw new RuntimeException("Букет не найден: " + bouquetId);
+                        }
+                        if (!bouquet.getInStock()) {
+                            throw new RuntimeException("Букет отсутствует в наличии: " + bouquet.getName());
+                        }
+                        if (quantity == null || quantity <= 0) {
+                            throw new RuntimeException("Количество должно быть больше 0");
+                        }
+                        CartItem existingItem = itemsByBouquet.get(bouquetId);
+                        if (existingItem != null) {
+                            existingItem.setQuantity(existingItem.getQuantity() + quantity);
+                        } else {
+                            CartItem newItem = new CartItem(cart, bouquet, quantity);
+                            cart.getItems().add(newItem);
+                            itemsByBouquet.put(bouquetId, newItem);
+                        }
+                    }
+                    case UPDATE -> {
+                        if (quantity == null || quantity <= 0) {
+                            removeItem(cart, itemsByBouquet, bouquetId);
+                        } else {
+                            CartItem item = itemsByBouquet.get(bouquetId);
+                            if (item == null) {
+                                throw new RuntimeException("Элемент корзины не найден: " + bouquetId);
+                            }
+                            item.setQuantity(quantity);
+                        }
+                    }
+                    case REMOVE -> removeItem(cart, itemsByBouquet, bouquetId);
+                }
+            }
+
+            // Итог и сохранение один раз на весь пакет
+            cart.calculateTotal();
+            cartRepository.save(cart);
+            updateCount(userId, cart);
+
+            return convertToDto(cart);
+        }
+
+        // Удаленная из коллекции позиция удаляется при flush (orphanRemoval)
+        private void removeItem(Cart cart, Map<Long, CartItem> itemsByBouquet, Long bouquetId) {
+            CartItem item = itemsByBouquet.remove(bouquetId);
+            if (item != null) {
+                cart.getItems().remove(item);
+            }
+        }
+
+        // Значок корзины: ответ из памяти, БД только при промахе
+        @Override
+        @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
         public Integer getCartItemCount(Long userId) {
             try {
                 if (userId == null) {
                     return 0; // Для неавторизованных пользователей
                 }
-                Cart cart = cartRepository.findByUserIdWithItems(userId).orElse(null);
-                if (cart == null || cart.getItems() == null) {
-                    return 0;
-                }
-                return cart.getItems().stream()
-                        .mapToInt(CartItem::getQuantity)
-                        .sum();
+                return cartCountCache.get(userId);
             } catch (Exception e) {
                 return 0;
             }
         }
 
+        // Для изменений: позиции, букеты и категории загружаются вместе с корзиной
+        private Cart getCartWithBouquets(Long userId) {
+            return cartRepository.findByUserIdWithItemsAndBouquets(userId)
+                    .orElseGet(() -> getOrCreateCartForUser(userId));
+        }
 
+        private void updateCount(Long userId, Cart cart) {
+            int count = cart.getItems().stream()
+                    .mapToInt(CartItem::getQuantity)
+                    .sum();
+            cartCountCache.set(userId, count);
+        }
 
         private CartDto convertToDto(Cart cart) {
             CartDto dto = new CartDto();
@@ -180,4 +274,14 @@
 
             return dto;
         }
+
+        private CartItemDto convertLineToDto(CartLineView line) {
+            CartItemDto dto = new CartItemDto(line.getBouquetId(), line.getQuantity());
+            dto.setId(line.getItemId());
+            dto.setUnitPrice(line.getUnitPrice());
+            dto.setSubtotal(line.getSubtotal());
+            dto.setBouquetName(line.getBouquetName());
+            dto.setBouquetImage(line.getBouquetImage());
+            return dto;
+        }
     }
\ No newline at end of file
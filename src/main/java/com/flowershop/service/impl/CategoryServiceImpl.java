@@ -2,6 +2,8 @@ package com.flowershop.service.impl;
 
 import com.flowershop.entity.Category;
 import com.flowershop.repository.CategoryRepository;
+import com.flowershop.service.BouquetSearchIndex;
+import com.flowershop.service.CatalogSnapshotService;
 import com.flowershop.service.CategoryService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,9 +17,15 @@ import java.util.List;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final BouquetSearchIndex bouquetSearchIndex;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository,
+                               CatalogSnapshotService catalogSnapshotService,
+                               BouquetSearchIndex bouquetSearchIndex) {
         this.categoryRepository = categoryRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.bouquetSearchIndex = bouquetSearchIndex;
     }
 
     @Override
@@ -33,7 +41,11 @@ public class CategoryServiceImpl implements CategoryService {
         existingCategory.setName(category.getName());
         existingCategory.setDescription(category.getDescription());
 
-        return categoryRepository.save(existingCategory);
+        // Название категории показывается в карточках каталога и участвует в поиске
+        catalogSnapshotService.invalidate();
+        Category savedCategory = categoryRepository.save(existingCategory);
+        bouquetSearchIndex.reindexCategory(savedCategory);
+        return savedCategory;
     }
 
     @Override
@@ -0,0 +1,53 @@
+package com.flowershop.service.impl;
+
+import com.flowershop.dto.DashboardMetrics;
+import com.flowershop.entity.Order;
+import com.flowershop.service.DashboardMetricsService;
+import com.flowershop.service.OrderStatusCounters;
+import com.flowershop.service.ReportCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DashboardMetricsServiceImpl implements DashboardMetricsService {
+
+    // Итоги одним обращением к БД. Каждый подзапрос - COUNT(*) по всей таблице,
+    // поэтому результат живёт в кэше отчетов
+    private static final String METRICS_SQL = """
+        SELECT
+            (SELECT COUNT(*) FROM users) AS total_users,
+            (SELECT COUNT(*) FROM orders) AS total_orders,
+            (SELECT COUNT(*) FROM bouquets) AS total_bouquets
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReportCache reportCache;
+    private final OrderStatusCounters orderStatusCounters;
+
+    public DashboardMetricsServiceImpl(JdbcTemplate jdbcTemplate,
+                                       ReportCache reportCache,
+                                       OrderStatusCounters orderStatusCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportCache = reportCache;
+        this.orderStatusCounters = orderStatusCounters;
+    }
+
+    /**
+     * Итоги из кэша отчетов, а число ожидающих заказов - из счетчиков
+     * статусов в памяти, поэтому оно всегда актуально и не требует запроса.
+     */
+    @Override
+    public DashboardMetrics getMetrics() {
+        DashboardMetrics totals = reportCache.get("dashboard-metrics", this::loadTotals);
+        return new DashboardMetrics(totals.getTotalUsers(), totals.getTotalOrders(), totals.getTotalBouquets(),
+                orderStatusCounters.get(Order.OrderStatus.PENDING));
+    }
+
+    private DashboardMetrics loadTotals() {
+        return jdbcTemplate.queryForObject(METRICS_SQL, (rs, rowNum) -> new DashboardMetrics(
+                rs.getLong("total_users"),
+                rs.getLong("total_orders"),
+                rs.getLong("total_bouquets"),
+                0));
+    }
+}
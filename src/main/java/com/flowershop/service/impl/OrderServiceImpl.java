@@ -1,44 +1,133 @@
 package com.flowershop.service.impl;
 
+import com.flowershop.dto.BulkStatusResult;
+import com.flowershop.dto.CursorPage;
 import com.flowershop.dto.OrderDto;
 import com.flowershop.dto.OrderItemDto;
+import com.flowershop.dto.OrderSummaryView;
 import com.flowershop.entity.*;
 import com.flowershop.exception.ResourceNotFoundException;
+import com.flowershop.exception.StockReservationException;
 import com.flowershop.repository.*;
+import com.flowershop.service.AuditService;
+import com.flowershop.service.CartCountCache;
+import com.flowershop.service.OrderNumberGenerator;
 import com.flowershop.service.OrderService;
+import com.flowershop.service.OrderStatusCounters;
+import com.flowershop.service.SalesRollupService;
+import com.flowershop.service.StockReservationService;
+import com.flowershop.util.KeysetCursor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
+    // Из каких статусов разрешен массовый перевод в целевой
+    private static final Map<Order.OrderStatus, Set<Order.OrderStatus>> BULK_SOURCES = Map.of(
+            Order.OrderStatus.CONFIRMED, EnumSet.of(Order.OrderStatus.PENDING),
+            Order.OrderStatus.IN_PROGRESS, EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED),
+            Order.OrderStatus.COMPLETED, EnumSet.of(Order.OrderStatus.CONFIRMED, Order.OrderStatus.IN_PROGRESS),
+            Order.OrderStatus.CANCELLED, EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED,
+                    Order.OrderStatus.IN_PROGRESS));
+
+    // Строки блокируются в порядке id; статус перепроверяется после блокировки
+    private static final String BULK_STATUS_SQL = """
+        WITH target AS (
+            SELECT o.id, o.status AS previous_status
+            FROM orders o
+            WHERE o.id = ANY(?::bigint[])
+              AND o.deleted = false
+              AND o.status = ANY(?::varchar[])
+            ORDER BY o.id
+            FOR UPDATE
+        )
+        UPDATE orders o
+        SET status = ?, updated_at = CURRENT_TIMESTAMP
+        FROM target t
+        WHERE o.id = t.id
+        RETURNING o.id, o.order_number, o.total_amount, t.previous_status
+    """;
+
+    private static final String BULK_STATUS_MISSES_SQL =
+            "SELECT o.id, o.status, o.deleted FROM orders o WHERE o.id = ANY(?::bigint[])";
+
+    private static final String ORDER_QUANTITIES_SQL = """
+        SELECT oi.bouquet_id, SUM(oi.quantity)
+        FROM order_items oi
+        WHERE oi.order_id = ANY(?::bigint[])
+        GROUP BY oi.bouquet_id
+    """;
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final BouquetRepository bouquetRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final StockReservationService stockReservationService;
+    private final SalesRollupService salesRollupService;
+    private final OrderStatusCounters orderStatusCounters;
+    private final CartCountCache cartCountCache;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditService auditService;
 
     public OrderServiceImpl(OrderRepository orderRepository,
                             UserRepository userRepository,
                             BouquetRepository bouquetRepository,
                             OrderItemRepository orderItemRepository,
                             CartRepository cartRepository,
-                            CartItemRepository cartItemRepository) {
+                            CartItemRepository cartItemRepository,
+                            StockReservationService stockReservationService,
+                            SalesRollupService salesRollupService,
+                            OrderStatusCounters orderStatusCounters,
+                            CartCountCache cartCountCache,
+                            OrderNumberGenerator orderNumberGenerator,
+                            JdbcTemplate jdbcTemplate,
+                            AuditService auditService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.bouquetRepository = bouquetRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
+        this.stockReservationService = stockReservationService;
+        this.salesRollupService = salesRollupService;
+        this.orderStatusCounters = orderStatusCounters;
+        this.cartCountCache = cartCountCache;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditService = auditService;
     }
 
     @Override
@@ -53,6 +142,7 @@ public class OrderServiceImpl implements OrderService {
                 .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
 
         Order order = new Order();
+        order.setOrderNumber(orderNumberGenerator.next());
         order.setUser(user);
         order.setRecipientName(orderDto.getRecipientName());
         order.setRecipientPhone(orderDto.getRecipientPhone());
@@ -70,11 +160,15 @@ public class OrderServiceImpl implements OrderService {
 
             OrderItem orderItem = new OrderItem(savedOrder, bouquet, itemDto.getQuantity());
             orderItemRepository.save(orderItem);
+            savedOrder.getOrderItems().add(orderItem);
         }
 
         // Calculate total
         savedOrder.calculateTotal();
-        return orderRepository.save(savedOrder);
+        Order result = orderRepository.saveAndFlush(savedOrder);
+        salesRollupService.orderCreated(result);
+        orderStatusCounters.orderCreated(result);
+        return result;
     }
 
     @Override
@@ -96,16 +190,22 @@ public class OrderServiceImpl implements OrderService {
     public void deleteOrder(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Заказ не найден"));
+        Boolean wasDeleted = order.getDeleted();
         order.setDeleted(true);
-        orderRepository.save(order);
+        orderRepository.saveAndFlush(order);
+        salesRollupService.orderChanged(order, order.getStatus(), wasDeleted);
+        orderStatusCounters.orderChanged(order, order.getStatus(), wasDeleted);
     }
 
     @Override
     public void restoreOrder(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Заказ не найден"));
+        Boolean wasDeleted = order.getDeleted();
         order.setDeleted(false);
-        orderRepository.save(order);
+        orderRepository.saveAndFlush(order);
+        salesRollupService.orderChanged(order, order.getStatus(), wasDeleted);
+        orderStatusCounters.orderChanged(order, order.getStatus(), wasDeleted);
     }
 
     @Override
@@ -172,6 +272,45 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository.findByStatus(status, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryView> findSummaries(Long userId, Pageable pageable) {
+        if (userId == null) {
+            return orderRepository.findAllSummaries(pageable);
+        }
+        return orderRepository.findSummariesByUserId(userId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryView> scroll(Long userId, Order.OrderStatus status, String cursor,
+                                               int size, boolean withCount) {
+        // Новые заказы первыми; id монотонен и покрыт первичным ключом
+        Sort sort = Sort.by(Sort.Direction.DESC, "id");
+        Long lastId = (Long) KeysetCursor.key(cursor, sort, Order.class, "id");
+        Long afterId = lastId != null ? lastId : Long.MAX_VALUE;
+        // Одна лишняя строка показывает, есть ли следующая страница
+        Limit limit = Limit.of(size + 1);
+
+        List<OrderSummaryView> rows;
+        Long total = null;
+        if (userId != null && status != null) {
+            rows = orderRepository.scrollSummariesByUserIdAndStatus(userId, status, afterId, limit);
+            if (withCount) total = orderRepository.countByUser_IdAndStatusAndDeletedFalse(userId, status);
+        } else if (userId != null) {
+            rows = orderRepository.scrollSummariesByUserId(userId, afterId, limit);
+            if (withCount) total = orderRepository.countByUser_IdAndDeletedFalse(userId);
+        } else if (status != null) {
+            rows = orderRepository.scrollSummariesByStatus(status, afterId, limit);
+            if (withCount) total = orderRepository.countByStatus(status);
+        } else {
+            rows = orderRepository.scrollSummaries(afterId, limit);
+            if (withCount) total = orderRepository.count();
+        }
+
+        return KeysetCursor.toPage(rows, size, row -> Map.of("id", row.getId()), sort, total);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<Order> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
@@ -201,6 +340,7 @@ public class OrderServiceImpl implements OrderService {
         System.out.println("Current status: " + order.getStatus());
         System.out.println("Updating to: " + status);
 
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
         order.setUpdatedAt(LocalDateTime.now());
 
@@ -210,82 +350,174 @@ public class OrderServiceImpl implements OrderService {
         // Принудительно сбросим Hibernate кэш
         orderRepository.flush();
         System.out.println("Changes flushed to database");
+
+        salesRollupService.orderChanged(savedOrder, previousStatus, savedOrder.getDeleted());
+        orderStatusCounters.orderChanged(savedOrder, previousStatus, savedOrder.getDeleted());
     }
 
+    /**
+     * Массовая смена статуса одним UPDATE. Меняются только неудаленные заказы
+     * в разрешенных исходных статусах, по остальным возвращается причина.
+     * Агрегаты, аудит и (для отмены) возврат остатков - пакетами на все заказы.
+     */
     @Override
     @Transactional
-    public Order createOrderFromCart(Long userId, OrderDto orderDto) {
-        try {
-            System.out.println("=== CREATING ORDER FROM CART ===");
-            System.out.println("User ID: " + userId);
-            System.out.println("Order DTO: " + orderDto);
-
-            // Получаем пользователя
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+    public BulkStatusResult updateOrderStatuses(List<Long> orderIds, Order.OrderStatus status) {
+        Set<Order.OrderStatus> sources = BULK_SOURCES.get(status);
+        if (sources == null) {
+            throw new IllegalArgumentException("Массовый перевод в статус " + status + " не поддерживается");
+        }
 
-            // Получаем корзину пользователя
-            Cart cart = cartRepository.findByUserIdWithItems(userId)
-                    .orElseThrow(() -> new RuntimeException("Корзина не найдена"));
+        Long[] ids = orderIds.stream().filter(Objects::nonNull).distinct().toArray(Long[]::new);
+        String[] sourceNames = sources.stream().map(Enum::name).toArray(String[]::new);
+
+        List<Order> updated = new ArrayList<>();
+        Map<Long, Order.OrderStatus> previousStatuses = new HashMap<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Array idArray = connection.createArrayOf("bigint", ids);
+            Array sourceArray = connection.createArrayOf("varchar", sourceNames);
+            try (PreparedStatement ps = connection.prepareStatement(BULK_STATUS_SQL)) {
+                ps.setArray(1, idArray);
+                ps.setArray(2, sourceArray);
+                ps.setString(3, status.name());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // Заказ только для агрегатов, счетчиков и аудита; в контекст Hibernate не попадает
+                        Order order = new Order();
+                        order.setId(rs.getLong(1));
+                        order.setOrderNumber(rs.getString(2));
+                        order.setTotalAmount(rs.getBigDecimal(3));
+                        order.setStatus(status);
+                        updated.add(order);
+                        previousStatuses.put(order.getId(), Order.OrderStatus.valueOf(rs.getString(4)));
+                    }
+                }
+            } finally {
+                idArray.free();
+                sourceArray.free();
+            }
+            return null;
+        });
 
-            if (cart.getItems().isEmpty()) {
-                throw new RuntimeException("Корзина пуста");
+        if (!updated.isEmpty()) {
+            if (status == Order.OrderStatus.CANCELLED) {
+                stockReservationService.release(orderQuantities(previousStatuses.keySet()));
             }
+            salesRollupService.ordersChanged(updated, previousStatuses);
+
+            // События аудита копятся до коммита и пишутся одним INSERT
+            String username = currentUsername();
+            for (Order order : updated) {
+                auditService.logAction("orders", order.getId(), "UPDATE",
+                        String.format("{\"status\": \"%s\"}", previousStatuses.get(order.getId())),
+                        String.format("{\"orderNumber\": \"%s\", \"status\": \"%s\"}", order.getOrderNumber(), status),
+                        username);
+            }
+            // Счетчики меняются одной суммой, админам уходит одно событие на всю пачку
+            orderStatusCounters.ordersChanged(updated, previousStatuses);
+        }
 
-            // Создаем заказ
-            Order order = new Order();
-            order.setUser(user);
-            order.setRecipientName(orderDto.getRecipientName());
-            order.setRecipientPhone(orderDto.getRecipientPhone());
-            order.setRecipientEmail(orderDto.getRecipientEmail());
-            order.setDeliveryAddress(orderDto.getDeliveryAddress());
-            order.setDeliveryDate(orderDto.getDeliveryDate());
-            order.setNotes(orderDto.getNotes());
-            order.setStatus(Order.OrderStatus.PENDING);
+        BulkStatusResult result = new BulkStatusResult(status);
+        Map<Long, String> misses = explainMisses(ids, previousStatuses, sources, status);
+        for (Long id : ids) {
+            Order.OrderStatus previous = previousStatuses.get(id);
+            result.getOutcomes().add(previous != null
+                    ? new BulkStatusResult.Outcome(id, true, previous, null)
+                    : new BulkStatusResult.Outcome(id, false, null, misses.get(id)));
+        }
+        System.out.println("Bulk status update to " + status + ": " + result.getUpdatedCount()
+                + " updated, " + result.getFailedCount() + " skipped");
+        return result;
+    }
 
-            // Переносим товары из корзины в заказ
-            for (CartItem cartItem : cart.getItems()) {
-                Bouquet bouquet = cartItem.getBouquet();
+    // Причины для незатронутых заказов; запрос только если такие есть
+    private Map<Long, String> explainMisses(Long[] ids, Map<Long, Order.OrderStatus> updated,
+                                            Set<Order.OrderStatus> sources, Order.OrderStatus status) {
+        Long[] missing = Arrays.stream(ids).filter(id -> !updated.containsKey(id)).toArray(Long[]::new);
+        Map<Long, String> reasons = new HashMap<>();
+        if (missing.length == 0) {
+            return reasons;
+        }
+        for (Long id : missing) {
+            reasons.put(id, "Заказ не найден");
+        }
 
-                // Проверяем наличие
-                if (!bouquet.getInStock() || bouquet.getStockQuantity() < cartItem.getQuantity()) {
-                    throw new RuntimeException("Недостаточно товара: " + bouquet.getName() +
-                            ". В наличии: " + bouquet.getStockQuantity() +
-                            ", запрошено: " + cartItem.getQuantity());
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Array idArray = connection.createArrayOf("bigint", missing);
+            try (PreparedStatement ps = connection.prepareStatement(BULK_STATUS_MISSES_SQL)) {
+                ps.setArray(1, idArray);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong("id");
+                        Order.OrderStatus current = Order.OrderStatus.valueOf(rs.getString("status"));
+                        if (rs.getBoolean("deleted")) {
+                            reasons.put(id, "Заказ удален");
+                        } else if (current == status) {
+                            reasons.put(id, "Заказ уже в статусе " + status);
+                        } else if (!sources.contains(current)) {
+                            reasons.put(id, "Переход " + current + " -> " + status + " не разрешен");
+                        } else {
+                            reasons.put(id, "Статус заказа изменился во время обновления");
+                        }
+                    }
                 }
+            } finally {
+                idArray.free();
+            }
+            return null;
+        });
+        return reasons;
+    }
 
-                // Обновляем остатки
-                bouquet.setStockQuantity(bouquet.getStockQuantity() - cartItem.getQuantity());
-                if (bouquet.getStockQuantity() <= 0) {
-                    bouquet.setInStock(false);
+    private Map<Long, Integer> orderQuantities(Collection<Long> orderIds) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Array idArray = connection.createArrayOf("bigint", orderIds.toArray(new Long[0]));
+            try (PreparedStatement ps = connection.prepareStatement(ORDER_QUANTITIES_SQL)) {
+                ps.setArray(1, idArray);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        quantities.put(rs.getLong(1), rs.getInt(2));
+                    }
                 }
-                bouquetRepository.save(bouquet);
-
-                // Создаем элемент заказа
-                OrderItem orderItem = new OrderItem();
-                orderItem.setOrder(order);
-                orderItem.setBouquet(bouquet);
-                orderItem.setQuantity(cartItem.getQuantity());
-                orderItem.setUnitPrice(cartItem.getUnitPrice());
-                orderItem.calculateSubtotal();
-                order.getOrderItems().add(orderItem);
+            } finally {
+                idArray.free();
             }
+            return null;
+        });
+        return quantities;
+    }
 
-            // Рассчитываем общую сумму
-            order.calculateTotal();
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "system";
+    }
 
-            // Сохраняем заказ
-            Order savedOrder = orderRepository.save(order);
+    @Override
+    @Transactional
+    public Order createOrderFromCart(Long userId, OrderDto orderDto) {
+        try {
+            System.out.println("=== CREATING ORDER FROM CART ===");
+            System.out.println("User ID: " + userId);
+            System.out.println("Order DTO: " + orderDto);
+
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            Order savedOrder = placeOrderFromCart(userId, orderDto, quantities);
 
-            // Очищаем корзину
-            cart.getItems().clear();
-            cart.setTotalAmount(BigDecimal.ZERO);
-            cartRepository.save(cart);
-            cartItemRepository.deleteByCartId(cart.getId());
+            // Списываем остатки одним запросом; блокировки строк держатся только до коммита
+            stockReservationService.reserve(quantities);
+            // Агрегаты - последней записью: строки итогов общие для всех заказов,
+            // и букеты везде блокируются раньше них
+            salesRollupService.orderCreated(savedOrder);
+            orderStatusCounters.orderCreated(savedOrder);
 
             System.out.println("Order created successfully: " + savedOrder.getOrderNumber());
             return savedOrder;
 
+        } catch (StockReservationException e) {
+            // Нехватку пробрасываем как есть: клиенту нужен список позиций
+            System.out.println("Error creating order from cart: " + e.getMessage());
+            throw e;
         } catch (Exception e) {
             System.out.println("Error creating order from cart: " + e.getMessage());
             e.printStackTrace();
@@ -293,6 +525,84 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Несколько заказов из корзин в одной транзакции: остатки по всем заказам
+     * списываются одним запросом. Ошибка любого заказа откатывает всю пачку,
+     * тогда заказы нужно оформить по одному через createOrderFromCart.
+     */
+    @Override
+    @Transactional
+    public List<Order> createOrdersFromCarts(Map<Long, OrderDto> checkouts) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        List<Order> orders = new ArrayList<>();
+        for (Map.Entry<Long, OrderDto> checkout : checkouts.entrySet()) {
+            orders.add(placeOrderFromCart(checkout.getKey(), checkout.getValue(), quantities));
+        }
+        stockReservationService.reserve(quantities);
+        salesRollupService.ordersCreated(orders);
+        orders.forEach(orderStatusCounters::orderCreated);
+        System.out.println("Orders created in batch: " + orders.size());
+        return orders;
+    }
+
+    // Заказ из корзины без списания остатков и без агрегатов; количества добавляются в quantities
+    private Order placeOrderFromCart(Long userId, OrderDto orderDto, Map<Long, Integer> quantities) {
+        // Получаем пользователя
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+
+        // Получаем корзину пользователя
+        Cart cart = cartRepository.findByUserIdWithItems(userId)
+                .orElseThrow(() -> new RuntimeException("Корзина не найдена"));
+
+        if (cart.getItems().isEmpty()) {
+            throw new RuntimeException("Корзина пуста");
+        }
+
+        // Создаем заказ
+        Order order = new Order();
+        order.setOrderNumber(orderNumberGenerator.next());
+        order.setUser(user);
+        order.setRecipientName(orderDto.getRecipientName());
+        order.setRecipientPhone(orderDto.getRecipientPhone());
+        order.setRecipientEmail(orderDto.getRecipientEmail());
+        order.setDeliveryAddress(orderDto.getDeliveryAddress());
+        order.setDeliveryDate(orderDto.getDeliveryDate());
+        order.setNotes(orderDto.getNotes());
+        order.setStatus(Order.OrderStatus.PENDING);
+
+        // Переносим товары из корзины в заказ
+        for (CartItem cartItem : cart.getItems()) {
+            // Букет нужен только как ссылка, прокси не инициализируется
+            Bouquet bouquet = cartItem.getBouquet();
+            quantities.merge(bouquet.getId(), cartItem.getQuantity(), Integer::sum);
+
+            // Создаем элемент заказа
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setBouquet(bouquet);
+            orderItem.setQuantity(cartItem.getQuantity());
+            orderItem.setUnitPrice(cartItem.getUnitPrice());
+            orderItem.calculateSubtotal();
+            order.getOrderItems().add(orderItem);
+        }
+
+        // Рассчитываем общую сумму
+        order.calculateTotal();
+
+        // Сохраняем заказ вместе с позициями
+        Order savedOrder = orderRepository.saveAndFlush(order);
+
+        // Очищаем корзину
+        cart.getItems().clear();
+        cart.setTotalAmount(BigDecimal.ZERO);
+        cartRepository.save(cart);
+        cartItemRepository.deleteByCartId(cart.getId());
+        cartCountCache.set(userId, 0);
+
+        return savedOrder;
+    }
+
     @Override
     @Transactional
     public Order createOrderWithTransaction(OrderDto orderDto) {
@@ -306,20 +616,22 @@ public class OrderServiceImpl implements OrderService {
             User user = userRepository.findById(orderDto.getUserId())
                     .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
 
-            // Проверяем наличие всех товаров
+            // Загружаем все букеты заказа одним запросом
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
             for (OrderItemDto itemDto : orderDto.getOrderItems()) {
-                Bouquet bouquet = bouquetRepository.findById(itemDto.getBouquetId())
-                        .orElseThrow(() -> new RuntimeException("Букет не найден: " + itemDto.getBouquetId()));
-
-                if (!bouquet.getInStock() || bouquet.getStockQuantity() < itemDto.getQuantity()) {
-                    throw new RuntimeException("Недостаточно товара: " + bouquet.getName() +
-                            ". В наличии: " + bouquet.getStockQuantity() +
-                            ", запрошено: " + itemDto.getQuantity());
+                quantities.merge(itemDto.getBouquetId(), itemDto.getQuantity(), Integer::sum);
+            }
+            Map<Long, Bouquet> bouquets = bouquetRepository.findAllById(quantities.keySet()).stream()
+                    .collect(Collectors.toMap(Bouquet::getId, Function.identity()));
+            for (Long bouquetId : quantities.keySet()) {
+                if (!bouquets.containsKey(bouquetId)) {
+                    throw new RuntimeException("Букет не найден: " + bouquetId);
                 }
             }
 
             // Создаем заказ
             Order order = new Order();
+            order.setOrderNumber(orderNumberGenerator.next());
             order.setUser(user);
             order.setRecipientName(orderDto.getRecipientName());
             order.setRecipientPhone(orderDto.getRecipientPhone());
@@ -332,29 +644,29 @@ public class OrderServiceImpl implements OrderService {
 
             BigDecimal totalAmount = BigDecimal.ZERO;
 
-            // Добавляем товары и обновляем остатки
+            // Добавляем товары
             for (OrderItemDto itemDto : orderDto.getOrderItems()) {
-                Bouquet bouquet = bouquetRepository.findById(itemDto.getBouquetId())
-                        .orElseThrow(() -> new RuntimeException("Букет не найден"));
+                Bouquet bouquet = bouquets.get(itemDto.getBouquetId());
 
                 // Создаем элемент заказа
                 OrderItem orderItem = new OrderItem(savedOrder, bouquet, itemDto.getQuantity());
                 orderItemRepository.save(orderItem);
 
-                // Обновляем остатки
-                bouquet.setStockQuantity(bouquet.getStockQuantity() - itemDto.getQuantity());
-                if (bouquet.getStockQuantity() <= 0) {
-                    bouquet.setInStock(false);
-                }
-                bouquetRepository.save(bouquet);
-
                 totalAmount = totalAmount.add(orderItem.getSubtotal());
             }
 
+            // Списываем остатки по всем позициям; при нехватке транзакция откатится целиком
+            stockReservationService.reserve(quantities);
+
             // Обновляем общую сумму
             savedOrder.setTotalAmount(totalAmount);
-            return orderRepository.save(savedOrder);
+            Order result = orderRepository.saveAndFlush(savedOrder);
+            salesRollupService.orderCreated(result);
+            orderStatusCounters.orderCreated(result);
+            return result;
 
+        } catch (StockReservationException e) {
+            throw e;
         } catch (Exception e) {
             // В случае ошибки транзакция откатится автоматически благодаря @Transactional
             throw new RuntimeException("Ошибка при создании заказа: " + e.getMessage(), e);
@@ -373,18 +685,18 @@ public class OrderServiceImpl implements OrderService {
             }
 
             // Возвращаем товары на склад
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
             for (OrderItem item : order.getOrderItems()) {
-                Bouquet bouquet = item.getBouquet();
-                bouquet.setStockQuantity(bouquet.getStockQuantity() + item.getQuantity());
-                if (bouquet.getStockQuantity() > 0) {
-                    bouquet.setInStock(true);
-                }
-                bouquetRepository.save(bouquet);
+                quantities.merge(item.getBouquet().getId(), item.getQuantity(), Integer::sum);
             }
+            stockReservationService.release(quantities);
 
             // Меняем статус заказа
+            Order.OrderStatus previousStatus = order.getStatus();
             order.setStatus(Order.OrderStatus.CANCELLED);
-            orderRepository.save(order);
+            orderRepository.saveAndFlush(order);
+            salesRollupService.orderChanged(order, previousStatus, order.getDeleted());
+            orderStatusCounters.orderChanged(order, previousStatus, order.getDeleted());
 
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при отмене заказа: " + e.getMessage(), e);
@@ -392,8 +704,15 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Long countByStatus(Order.OrderStatus status) {
-        return orderRepository.countByStatus(status);
+        return orderStatusCounters.get(status);
+    }
+
+    // Счетчики в памяти: без транзакции и запросов к БД
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<Order.OrderStatus, Long> getStatusCounts() {
+        return orderStatusCounters.snapshot();
     }
 }
\ No newline at end of file
@@ -1,46 +1,49 @@
 package com.flowershop.service.impl;
 
 import com.flowershop.repository.ReportRepository;
+import com.flowershop.service.ReportCache;
 import com.flowershop.service.ReportService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ReportServiceImpl implements ReportService {
 
+    // Отчет по заказам без явного периода охватывает последние 30 дней
+    private static final int SALES_REPORT_DAYS = 30;
+
+    // Верхняя граница периода отчета по выручке
+    private static final int MAX_REVENUE_MONTHS = 240;
+
+    // Отчеты читаются через ReportCache. Методы чтения идут с SUPPORTS,
+    // чтобы ожидание общего загрузчика не держало соединение с БД
     private final ReportRepository reportRepository;
+    private final ReportCache reportCache;
 
-    public ReportServiceImpl(ReportRepository reportRepository) {
+    public ReportServiceImpl(ReportRepository reportRepository, ReportCache reportCache) {
         this.reportRepository = reportRepository;
+        this.reportCache = reportCache;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getSalesReport() {
         try {
-            System.out.println("Getting real sales report data from repository");
-            List<Map<String, Object>> result = reportRepository.getSalesReport();
-            System.out.println("Sales report data retrieved: " + (result != null ? result.size() : 0) + " items");
-
-            // Логируем данные для отладки
-            if (result != null && !result.isEmpty()) {
-                System.out.println("=== SALES REPORT DATA ===");
-                result.forEach(System.out::println);
-            } else {
-                System.out.println("No sales report data found");
-            }
-
-            return result != null ? result : new ArrayList<>();
+            return loadSalesReport();
         } catch (Exception e) {
             System.out.println("Error in getSalesReport: " + e.getMessage());
             e.printStackTrace();
@@ -49,22 +52,10 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getBouquetStatistics() {
         try {
-            System.out.println("Getting real bouquet statistics from repository");
-            List<Map<String, Object>> result = reportRepository.getBouquetStatistics();
-            System.out.println("Bouquet statistics retrieved: " + (result != null ? result.size() : 0) + " items");
-
-            // Логируем данные для отладки
-            if (result != null && !result.isEmpty()) {
-                System.out.println("=== BOUQUET STATS DATA ===");
-                result.forEach(System.out::println);
-            } else {
-                System.out.println("No bouquet statistics data found");
-            }
-
-            return result != null ? result : new ArrayList<>();
+            return loadBouquetStatistics();
         } catch (Exception e) {
             System.out.println("Error in getBouquetStatistics: " + e.getMessage());
             e.printStackTrace();
@@ -73,22 +64,10 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getUserActivityReport() {
         try {
-            System.out.println("Getting real user activity report from repository");
-            List<Map<String, Object>> result = reportRepository.getUserActivityReport();
-            System.out.println("User activity report retrieved: " + (result != null ? result.size() : 0) + " items");
-
-            // Логируем данные для отладки
-            if (result != null && !result.isEmpty()) {
-                System.out.println("=== USER ACTIVITY DATA ===");
-                result.forEach(System.out::println);
-            } else {
-                System.out.println("No user activity data found");
-            }
-
-            return result != null ? result : new ArrayList<>();
+            return loadUserActivityReport();
         } catch (Exception e) {
             System.out.println("Error in getUserActivityReport: " + e.getMessage());
             e.printStackTrace();
@@ -97,24 +76,76 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> loadSalesReport() {
+        LocalDate today = LocalDate.now();
+        return cached("sales:" + today, () -> {
+            System.out.println("Getting real sales report data from repository");
+            List<Map<String, Object>> result = reportRepository.getDailySalesReport(
+                    today.minusDays(SALES_REPORT_DAYS - 1).atStartOfDay(), today.plusDays(1).atStartOfDay());
+            System.out.println("Sales report data retrieved: " + (result != null ? result.size() : 0) + " items");
+            return result;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> loadBouquetStatistics() {
+        return cached("bouquet-stats", () -> {
+            System.out.println("Getting real bouquet statistics from repository");
+            List<Map<String, Object>> result = reportRepository.getBouquetStatistics();
+            System.out.println("Bouquet statistics retrieved: " + (result != null ? result.size() : 0) + " items");
+            return result;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> loadUserActivityReport() {
+        return cached("user-activity", () -> {
+            System.out.println("Getting real user activity report from repository");
+            List<Map<String, Object>> result = reportRepository.getUserActivityReport();
+            System.out.println("User activity report retrieved: " + (result != null ? result.size() : 0) + " items");
+            return result;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> calculateMonthlyRevenue(Integer year, Integer month) {
-        try {
-            if (year == null) year = LocalDateTime.now().getYear();
-            if (month == null) month = LocalDateTime.now().getMonthValue();
+        // Месяц года, весь год или последние 12 месяцев
+        YearMonth from;
+        YearMonth to;
+        if (year != null && month != null) {
+            from = to = YearMonth.of(year, month);
+        } else if (year != null) {
+            from = YearMonth.of(year, 1);
+            to = YearMonth.of(year, 12);
+        } else {
+            to = YearMonth.now();
+            from = to.minusMonths(11);
+        }
 
-            System.out.println("Calculating monthly revenue for year=" + year + ", month=" + month);
+        System.out.println("Calculating monthly revenue from " + from + " to " + to);
+        return getMonthlyRevenue(from, to);
+    }
 
-            // ★★★★ ВРЕМЕННАЯ РЕАЛИЗАЦИЯ - используем временные данные ★★★★
-            List<Map<String, Object>> result = generateTemporaryMonthlyData();
-            System.out.println("Monthly revenue data retrieved: " + result.size() + " months");
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> getMonthlyRevenue(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Начальный месяц позже конечного");
+        }
+        if (from.plusMonths(MAX_REVENUE_MONTHS - 1).isBefore(to)) {
+            throw new IllegalArgumentException("Период не может превышать " + MAX_REVENUE_MONTHS + " месяцев");
+        }
 
+        // Читаются только строки sales_monthly за запрошенные месяцы
+        return cached("monthly:" + from + ":" + to, () -> {
+            List<Map<String, Object>> result = reportRepository.getMonthlyRevenue(from.atDay(1), to.atDay(1));
+            System.out.println("Monthly revenue data retrieved: " + result.size() + " months");
             return result;
-        } catch (Exception e) {
-            System.out.println("Error in calculateMonthlyRevenue: " + e.getMessage());
-            e.printStackTrace();
-            return generateTemporaryMonthlyData();
-        }
+        });
     }
 
     @Override
@@ -145,16 +176,18 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getDailySalesReport(LocalDate date) {
         try {
             LocalDateTime startDate = date.atStartOfDay();
             LocalDateTime endDate = date.plusDays(1).atStartOfDay();
 
-            System.out.println("Getting daily sales report for date: " + date);
-            List<Map<String, Object>> result = reportRepository.getDailySalesReport(startDate, endDate);
-            System.out.println("Daily sales report retrieved: " + (result != null ? result.size() : 0) + " items");
-            return result != null ? result : new ArrayList<>();
+            return cached("sales-day:" + date, () -> {
+                System.out.println("Getting daily sales report for date: " + date);
+                List<Map<String, Object>> result = reportRepository.getDailySalesReport(startDate, endDate);
+                System.out.println("Daily sales report retrieved: " + (result != null ? result.size() : 0) + " items");
+                return result;
+            });
         } catch (Exception e) {
             System.out.println("Error in getDailySalesReport: " + e.getMessage());
             e.printStackTrace();
@@ -163,15 +196,17 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getPopularBouquets(Integer limit) {
         try {
-            if (limit == null) limit = 10;
-
-            System.out.println("Getting popular bouquets with limit: " + limit);
-            List<Map<String, Object>> result = reportRepository.getPopularBouquets(limit);
-            System.out.println("Popular bouquets retrieved: " + (result != null ? result.size() : 0) + " items");
-            return result != null ? result : new ArrayList<>();
+            int top = limit != null ? limit : 10;
+
+            return cached("popular-bouquets:" + top, () -> {
+                System.out.println("Getting popular bouquets with limit: " + top);
+                List<Map<String, Object>> result = reportRepository.getPopularBouquets(top);
+                System.out.println("Popular bouquets retrieved: " + (result != null ? result.size() : 0) + " items");
+                return result;
+            });
         } catch (Exception e) {
             System.out.println("Error in getPopularBouquets: " + e.getMessage());
             e.printStackTrace();
@@ -180,13 +215,11 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getCustomerLoyaltyReport() {
         try {
-            System.out.println("Getting customer loyalty report");
-            List<Map<String, Object>> result = reportRepository.getCustomerLoyaltyReport();
-            System.out.println("Customer loyalty report retrieved: " + (result != null ? result.size() : 0) + " items");
-            return result != null ? result : new ArrayList<>();
+            // Тот же запрос, что и активность пользователей, поэтому и запись в кэше общая
+            return getUserActivityReport();
         } catch (Exception e) {
             System.out.println("Error in getCustomerLoyaltyReport: " + e.getMessage());
             e.printStackTrace();
@@ -195,16 +228,18 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getSalesReportByDateRange(LocalDate startDate, LocalDate endDate) {
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
 
-            System.out.println("Getting sales report by date range: " + startDate + " to " + endDate);
-            List<Map<String, Object>> result = reportRepository.getDailySalesReport(startDateTime, endDateTime);
-            System.out.println("Sales report by date range retrieved: " + (result != null ? result.size() : 0) + " items");
-            return result != null ? result : new ArrayList<>();
+            return cached("sales-range:" + startDate + ":" + endDate, () -> {
+                System.out.println("Getting sales report by date range: " + startDate + " to " + endDate);
+                List<Map<String, Object>> result = reportRepository.getDailySalesReport(startDateTime, endDateTime);
+                System.out.println("Sales report by date range retrieved: " + (result != null ? result.size() : 0) + " items");
+                return result;
+            });
         } catch (Exception e) {
             System.out.println("Error in getSalesReportByDateRange: " + e.getMessage());
             e.printStackTrace();
@@ -213,73 +248,74 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Map<String, Object> getDashboardStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> getDailySalesSummary(LocalDate startDate, LocalDate endDate) {
         try {
-            System.out.println("Getting real dashboard statistics from repository");
-
-            // Пробуем получить реальные данные
-            stats.put("totalUsers", reportRepository.getTotalUsers());
-            stats.put("totalOrders", reportRepository.getTotalOrders());
-            stats.put("totalRevenue", reportRepository.getTotalRevenue());
-            stats.put("pendingOrders", reportRepository.getPendingOrdersCount());
-            stats.put("monthlyRevenue", reportRepository.getCurrentMonthRevenue());
-
-            // Исправляем обработку популярных категорий
-            List<Object[]> popularCategoriesRaw = reportRepository.getPopularCategories(5);
-            List<Map<String, Object>> popularCategories = popularCategoriesRaw.stream()
-                    .map(result -> {
-                        Map<String, Object> categoryStats = new HashMap<>();
-                        categoryStats.put("categoryName", result[0]); // c.name
-                        categoryStats.put("orderCount", result[1]);   // COUNT(oi.id)
-                        return categoryStats;
-                    })
-                    .collect(Collectors.toList());
-
-            stats.put("popularCategories", popularCategories);
-
-            System.out.println("Dashboard statistics retrieved successfully");
-            System.out.println("Total Users: " + stats.get("totalUsers"));
-            System.out.println("Total Orders: " + stats.get("totalOrders"));
-            System.out.println("Total Revenue: " + stats.get("totalRevenue"));
-            System.out.println("Pending Orders: " + stats.get("pendingOrders"));
+            return cached("daily-sales:" + startDate + ":" + endDate, () -> {
+                System.out.println("Getting daily sales summary: " + startDate + " to " + endDate);
+                return reportRepository.getDailySales(startDate, endDate);
+            });
+        } catch (Exception e) {
+            System.out.println("Error in getDailySalesSummary: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, Object> getDashboardStatistics() {
+        try {
+            return reportCache.get("dashboard", this::loadDashboardStatistics);
         } catch (Exception e) {
             System.out.println("Error getting dashboard statistics: " + e.getMessage());
             e.printStackTrace();
 
             // Временные данные для демонстрации (только если реальные данные недоступны)
+            Map<String, Object> stats = new HashMap<>();
             stats.put("totalUsers", 0L);
             stats.put("totalOrders", 0L);
             stats.put("totalRevenue", BigDecimal.ZERO);
             stats.put("pendingOrders", 0L);
             stats.put("monthlyRevenue", BigDecimal.ZERO);
             stats.put("popularCategories", new ArrayList<>());
+            return stats;
         }
-
-        return stats;
     }
 
-    // ★★★★ ДОБАВЛЕН ВСПОМОГАТЕЛЬНЫЙ МЕТОД ★★★★
-    private List<Map<String, Object>> generateTemporaryMonthlyData() {
-        List<Map<String, Object>> data = new ArrayList<>();
-
-        String[] months = {"2024-06", "2024-05", "2024-04", "2024-03", "2024-02", "2024-01"};
-        double[] revenues = {26000, 22000, 19000, 24000, 18000, 15000};
-        long[] orders = {45, 38, 32, 40, 30, 25};
-
-        for (int i = 0; i < months.length; i++) {
-            Map<String, Object> monthData = new HashMap<>();
-            monthData.put("month_year", months[i]);
-            monthData.put("total_revenue", revenues[i]);
-            monthData.put("total_orders", orders[i]);
-            monthData.put("average_order_value", revenues[i] / orders[i]);
-            data.add(monthData);
-        }
+    private Map<String, Object> loadDashboardStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+
+        System.out.println("Getting real dashboard statistics from repository");
+
+        stats.put("totalUsers", reportRepository.getTotalUsers());
+        stats.put("totalOrders", reportRepository.getTotalOrders());
+        stats.put("totalRevenue", reportRepository.getTotalRevenue());
+        stats.put("pendingOrders", reportRepository.getPendingOrdersCount());
+        stats.put("monthlyRevenue", reportRepository.getCurrentMonthRevenue());
+
+        // Исправляем обработку популярных категорий
+        List<Object[]> popularCategoriesRaw = reportRepository.getPopularCategories(5);
+        List<Map<String, Object>> popularCategories = popularCategoriesRaw.stream()
+                .map(result -> {
+                    Map<String, Object> categoryStats = new HashMap<>();
+                    categoryStats.put("categoryName", result[0]); // c.name
+                    categoryStats.put("orderCount", result[1]);   // SUM(order_lines)
+                    return categoryStats;
+                })
+                .collect(Collectors.toList());
+
+        stats.put("popularCategories", popularCategories);
+
+        System.out.println("Dashboard statistics retrieved successfully");
+        return Collections.unmodifiableMap(stats);
+    }
 
-        System.out.println("Generated temporary monthly data: " + data.size() + " months");
-        return data;
+    // Результат общий для всех читателей, поэтому отдаётся только для чтения
+    private List<Map<String, Object>> cached(String key, Supplier<List<Map<String, Object>>> loader) {
+        return reportCache.get(key, () -> {
+            List<Map<String, Object>> result = loader.get();
+            return result != null ? Collections.unmodifiableList(result) : List.<Map<String, Object>>of();
+        });
     }
-}
\ No newline at end of file
+}
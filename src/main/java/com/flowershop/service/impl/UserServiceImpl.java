@@ -1,16 +1,23 @@
 package com.flowershop.service.impl;
 
+import com.flowershop.dto.CursorPage;
 import com.flowershop.dto.UserRegistrationDto;
+import com.flowershop.dto.UserRowView;
 import com.flowershop.entity.User;
 import com.flowershop.entity.UserRole;
 import com.flowershop.exception.ResourceNotFoundException;
 import com.flowershop.repository.UserRepository;
 import com.flowershop.repository.UserRoleRepository;
+import com.flowershop.security.ShopUserDetails;
 import com.flowershop.service.AuditService;
+import com.flowershop.service.CurrentUserResolver;
 import com.flowershop.service.EncryptionService;
 import com.flowershop.service.UserService;
+import com.flowershop.util.KeysetCursor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,8 +27,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -35,16 +44,19 @@ public class UserServiceImpl implements UserService {
     private final AuditService auditService;
 
     private final EncryptionService encryptionService;
+    private final CurrentUserResolver currentUserResolver;
 
     public UserServiceImpl(UserRepository userRepository,
                            UserRoleRepository userRoleRepository,
                            PasswordEncoder passwordEncoder,
-                           AuditService auditService, EncryptionService encryptionService) {
+                           AuditService auditService, EncryptionService encryptionService,
+                           CurrentUserResolver currentUserResolver) {
         this.userRepository = userRepository;
         this.userRoleRepository = userRoleRepository;
         this.passwordEncoder = passwordEncoder;
         this.auditService = auditService;
         this.encryptionService = encryptionService;
+        this.currentUserResolver = currentUserResolver;
     }
 
     @Override
@@ -105,6 +117,7 @@ public class UserServiceImpl implements UserService {
 
         user.setDeleted(true);
         userRepository.save(user);
+        currentUserResolver.evict(user.getUsername());
     }
 
     @Override
@@ -120,6 +133,7 @@ public class UserServiceImpl implements UserService {
 
         user.setDeleted(false);
         userRepository.save(user);
+        currentUserResolver.evict(user.getUsername());
     }
 
     @Override
@@ -240,7 +254,9 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Неверное имя пользователя или пароль"));
 
-        return new org.springframework.security.core.userdetails.User(
+        // id и роли попадают в principal один раз при входе
+        return new ShopUserDetails(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 mapRolesToAuthorities(user.getRoles())
@@ -251,6 +267,55 @@ public class UserServiceImpl implements UserService {
         return userRepository.findBySearch(search, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserRowView> scrollBySearch(String search, String cursor, int size, boolean withCount) {
+        Sort sort = Sort.by("id");
+        Long lastId = (Long) KeysetCursor.key(cursor, sort, User.class, "id");
+        Long afterId = lastId != null ? lastId : 0L;
+        // Одна лишняя строка показывает, есть ли следующая страница
+        Limit limit = Limit.of(size + 1);
+
+        List<UserRowView> rows;
+        Long total = null;
+        if (search != null && !search.trim().isEmpty()) {
+            rows = userRepository.scrollRowsBySearch(search.trim(), afterId, limit);
+            if (withCount) total = userRepository.countBySearch(search.trim());
+        } else {
+            rows = userRepository.scrollRows(afterId, limit);
+            if (withCount) total = userRepository.count();
+        }
+
+        CursorPage<UserRowView> page = KeysetCursor.toPage(rows, size, row -> Map.of("id", row.getId()), sort, total);
+        attachRoles(page.getContent());
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserRowView> findAllRows(Pageable pageable) {
+        Page<UserRowView> page = userRepository.findAllRows(pageable);
+        attachRoles(page.getContent());
+        return page;
+    }
+
+    // Роли страницы одним запросом вместо EAGER-коллекции на каждого пользователя
+    private void attachRoles(List<UserRowView> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, UserRowView> byId = new HashMap<>();
+        for (UserRowView row : rows) {
+            byId.put(row.getId(), row);
+        }
+        for (Object[] pair : userRepository.findRoleNamesByUserIds(byId.keySet())) {
+            UserRowView row = byId.get((Long) pair[0]);
+            if (row != null) {
+                row.getRoles().add(((UserRole.RoleName) pair[1]).name());
+            }
+        }
+    }
+
     @Override
     public Page<User> findByRole(String role, Pageable pageable) {
         return userRepository.findByRole(role, pageable);
@@ -0,0 +1,74 @@
+package com.flowershop.util;
+
+import com.flowershop.entity.Bouquet;
+import com.flowershop.entity.Category;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+
+/**
+ * Общие помощники для in-memory представлений каталога:
+ * отсоединённые копии букетов и сортировка по полям Pageable.
+ */
+public final class BouquetSnapshotUtil {
+
+    private BouquetSnapshotUtil() {}
+
+    /**
+     * Компаратор для сортировки Spring Data.
+     * Возвращает null, если хотя бы одно поле не поддерживается в памяти.
+     */
+    public static Comparator<Bouquet> comparatorFor(Sort sort) {
+        Comparator<Bouquet> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Bouquet> next = switch (order.getProperty()) {
+                case "id" -> Comparator.comparing(Bouquet::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "name" -> Comparator.comparing(Bouquet::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                case "price" -> Comparator.comparing(Bouquet::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "createdAt" -> Comparator.comparing(Bouquet::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "updatedAt" -> Comparator.comparing(Bouquet::getUpdatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "stockQuantity" -> Comparator.comparing(Bouquet::getStockQuantity, Comparator.nullsLast(Comparator.naturalOrder()));
+                default -> null;
+            };
+            if (next == null) {
+                return null;
+            }
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+
+        // Стабильный порядок страниц при равных ключах
+        Comparator<Bouquet> byId = Comparator.comparing(Bouquet::getId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    // Отдельные копии, чтобы кэши не держали ссылок на сессию Hibernate и ленивые коллекции
+    public static Bouquet detachedCopy(Bouquet source, Category category) {
+        Bouquet copy = new Bouquet();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setPrice(source.getPrice());
+        copy.setImageUrl(source.getImageUrl());
+        copy.setInStock(source.getInStock());
+        copy.setStockQuantity(source.getStockQuantity());
+        copy.setDeleted(source.getDeleted());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setCategory(category);
+        return copy;
+    }
+
+    public static Category detachedCopy(Category source) {
+        if (source == null) {
+            return null;
+        }
+        Category copy = new Category(source.getName(), source.getDescription());
+        copy.setId(source.getId());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
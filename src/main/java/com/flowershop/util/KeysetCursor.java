@@ -0,0 +1,145 @@
+package com.flowershop.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowershop.dto.CursorPage;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Непрозрачный токен для keyset-пагинации.
+ * Токен хранит значения ключей сортировки (и id) последней строки страницы,
+ * поэтому следующая страница читается по индексу без OFFSET.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private KeysetCursor() {}
+
+    /**
+     * Позиция для запроса следующей страницы.
+     * Пустой токен - первая страница.
+     *
+     * @throws IllegalArgumentException если токен повреждён или выдан для другой сортировки
+     */
+    public static ScrollPosition decode(String token, Sort sort, Class<?> entityType) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        byte[] json;
+        try {
+            json = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            // Текст ошибки декодера не должен уходить клиенту
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+
+        try {
+            Map<?, ?> payload = MAPPER.readValue(json, Map.class);
+
+            if (!sort.toString().equals(payload.get("s"))) {
+                throw new IllegalArgumentException("Курсор выдан для другой сортировки");
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            Map<?, ?> raw = (Map<?, ?>) payload.get("k");
+            for (Map.Entry<?, ?> entry : raw.entrySet()) {
+                String property = entry.getKey().toString();
+                Object value = entry.getValue();
+                keys.put(property, value == null ? null : convert(value.toString(), propertyType(entityType, property)));
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+    }
+
+    /**
+     * Значение одного ключа из токена или null для первой страницы.
+     */
+    public static Object key(String token, Sort sort, Class<?> entityType, String property) {
+        ScrollPosition position = decode(token, sort, entityType);
+        if (position.isInitial()) {
+            return null;
+        }
+        return ((KeysetScrollPosition) position).getKeys().get(property);
+    }
+
+    /**
+     * Страница из выборки на size + 1 строк: лишняя строка означает, что есть продолжение.
+     *
+     * @param keys значения ключей сортировки для строки
+     */
+    public static <T> CursorPage<T> toPage(List<T> rows, int size, Function<T, Map<String, Object>> keys,
+                                           Sort sort, Long total) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String next = hasNext ? encode(keys.apply(content.get(content.size() - 1)), sort) : null;
+        return new CursorPage<>(content, next, hasNext, content.size(), total);
+    }
+
+    /**
+     * Оборачивает окно результатов; total передаётся только если считали COUNT.
+     */
+    public static <T> CursorPage<T> toPage(Window<T> window, Sort sort, Long total) {
+        String next = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            ScrollPosition position = window.positionAt(window.size() - 1);
+            if (position instanceof KeysetScrollPosition keyset) {
+                next = encode(keyset.getKeys(), sort);
+            }
+        }
+        return new CursorPage<>(window.getContent(), next, next != null, window.size(), total);
+    }
+
+    private static String encode(Map<String, Object> values, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        values.forEach((property, value) -> keys.put(property, value == null ? null : value.toString()));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("s", sort.toString());
+        payload.put("k", keys);
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MAPPER.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка формирования курсора: " + e.getMessage());
+        }
+    }
+
+    private static Class<?> propertyType(Class<?> entityType, String property) {
+        Field field = ReflectionUtils.findField(entityType, property);
+        if (field == null) {
+            throw new IllegalArgumentException("Неизвестное поле курсора: " + property);
+        }
+        return field.getType();
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        return DefaultConversionService.getSharedInstance().convert(value, type);
+    }
+}
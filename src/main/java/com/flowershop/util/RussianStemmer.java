@@ -0,0 +1,171 @@
+package com.flowershop.util;
+
+/**
+ * Стеммер русского языка по алгоритму Snowball (Porter).
+ * Отрезает окончания, чтобы "розы", "розами" и "роза" давали одну основу.
+ * Слово должно быть уже в нижнем регистре, "ё" заменена на "е".
+ */
+public final class RussianStemmer {
+
+    private static final String VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+
+    private static final String[] ADJECTIVE = {
+            "ими", "ыми", "его", "ого", "ему", "ому",
+            "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом",
+            "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"
+    };
+
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+
+    private static final String[] VERB_1 = {
+            "ете", "йте", "ешь", "нно", "ла", "на", "ли", "ем", "ло", "но", "ет", "ют", "ны", "ть", "й", "л", "н"
+    };
+    private static final String[] VERB_2 = {
+            "ейте", "уйте", "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло", "ено", "ует", "уют",
+            "ены", "ить", "ыть", "ишь", "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит", "ыт", "ую", "ю"
+    };
+
+    private static final String[] NOUN = {
+            "иями", "ями", "ами", "ией", "иям", "ием", "иях",
+            "ев", "ов", "ие", "ье", "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях",
+            "ию", "ью", "ия", "ья",
+            "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"
+    };
+
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private RussianStemmer() {}
+
+    public static String stem(String word) {
+        int rv = rvStart(word);
+        if (rv >= word.length()) {
+            return word;
+        }
+        int r1 = regionStart(word, 0);
+        int r2 = regionStart(word, r1);
+
+        String w = word;
+
+        // Шаг 1: деепричастие, иначе возвратность + прилагательное/глагол/существительное
+        String cut = removeGrouped(w, rv, PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2);
+        if (cut != null) {
+            w = cut;
+        } else {
+            cut = remove(w, rv, REFLEXIVE);
+            if (cut != null) {
+                w = cut;
+            }
+            cut = removeAdjectival(w, rv);
+            if (cut == null) {
+                cut = removeGrouped(w, rv, VERB_1, VERB_2);
+            }
+            if (cut == null) {
+                cut = remove(w, rv, NOUN);
+            }
+            if (cut != null) {
+                w = cut;
+            }
+        }
+
+        // Шаг 2
+        if (w.endsWith("и") && w.length() - 1 >= rv) {
+            w = w.substring(0, w.length() - 1);
+        }
+
+        // Шаг 3: словообразовательный суффикс только в R2
+        cut = remove(w, r2, DERIVATIONAL);
+        if (cut != null) {
+            w = cut;
+        }
+
+        // Шаг 4
+        if (w.endsWith("нн") && w.length() - 2 >= rv) {
+            return w.substring(0, w.length() - 1);
+        }
+        cut = remove(w, rv, SUPERLATIVE);
+        if (cut != null) {
+            w = cut;
+            if (w.endsWith("нн") && w.length() - 2 >= rv) {
+                w = w.substring(0, w.length() - 1);
+            }
+            return w;
+        }
+        if (w.endsWith("ь") && w.length() - 1 >= rv) {
+            w = w.substring(0, w.length() - 1);
+        }
+        return w;
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+
+    // RV - часть слова после первой гласной
+    private static int rvStart(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (isVowel(word.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    // R1/R2 - часть слова после первой согласной, идущей за гласной
+    private static int regionStart(String word, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (!isVowel(word.charAt(i)) && isVowel(word.charAt(i - 1))) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static String longestSuffix(String w, int region, String[] endings) {
+        String best = null;
+        for (String ending : endings) {
+            if (w.endsWith(ending) && w.length() - ending.length() >= region
+                    && (best == null || ending.length() > best.length())) {
+                best = ending;
+            }
+        }
+        return best;
+    }
+
+    private static String remove(String w, int region, String[] endings) {
+        String ending = longestSuffix(w, region, endings);
+        return ending == null ? null : w.substring(0, w.length() - ending.length());
+    }
+
+    // Окончания первой группы отрезаются только после "а"/"я", которые сами остаются
+    private static String removeGrouped(String w, int region, String[] afterAYa, String[] plain) {
+        String first = longestSuffix(w, region, afterAYa);
+        String second = longestSuffix(w, region, plain);
+
+        if (second != null && (first == null || second.length() >= first.length())) {
+            return w.substring(0, w.length() - second.length());
+        }
+        if (first != null) {
+            int before = w.length() - first.length() - 1;
+            if (before >= region && (w.charAt(before) == 'а' || w.charAt(before) == 'я')) {
+                return w.substring(0, w.length() - first.length());
+            }
+        }
+        return null;
+    }
+
+    private static String removeAdjectival(String w, int region) {
+        String cut = remove(w, region, ADJECTIVE);
+        if (cut == null) {
+            return null;
+        }
+        String participle = removeGrouped(cut, region, PARTICIPLE_1, PARTICIPLE_2);
+        return participle != null ? participle : cut;
+    }
+}
@@ -0,0 +1,16 @@
+-- Индексы для фильтров страницы управления букетами (/bouquets/manage).
+-- Все операторы идемпотентны и выполняются при каждом запуске приложения.
+
+-- Фильтр по категории с сортировкой по id
+CREATE INDEX IF NOT EXISTS idx_bouquets_category_id_id ON bouquets (category_id, id);
+
+-- Фильтр по статусу (активные / нет в наличии)
+CREATE INDEX IF NOT EXISTS idx_bouquets_deleted_in_stock_id ON bouquets (deleted, in_stock, id);
+
+-- Витрина: активные букеты в наличии по категории и диапазону цены
+CREATE INDEX IF NOT EXISTS idx_bouquets_active_category_price ON bouquets (category_id, price)
+    WHERE deleted = false AND in_stock = true;
+
+-- Редкие статусы: удалённые и закончившиеся букеты
+CREATE INDEX IF NOT EXISTS idx_bouquets_deleted_only ON bouquets (id) WHERE deleted = true;
+CREATE INDEX IF NOT EXISTS idx_bouquets_out_of_stock ON bouquets (id) WHERE in_stock = false;
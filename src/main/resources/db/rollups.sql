@@ -0,0 +1,77 @@
+-- Агрегаты продаж, которые обновляются вместе с заказами (SalesRollupService).
+-- Учитываются заказы, которые не удалены и не отменены.
+-- Все операторы идемпотентны и выполняются при каждом запуске приложения.
+
+-- Продажи по дням
+CREATE TABLE IF NOT EXISTS sales_daily (
+    day DATE PRIMARY KEY,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    items_quantity BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    completed_revenue NUMERIC(14, 2) NOT NULL DEFAULT 0
+);
+
+-- Продажи букета за день
+CREATE TABLE IF NOT EXISTS sales_daily_bouquet (
+    day DATE NOT NULL,
+    bouquet_id BIGINT NOT NULL,
+    order_lines BIGINT NOT NULL DEFAULT 0,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, bouquet_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_daily_bouquet_bouquet ON sales_daily_bouquet (bouquet_id, day);
+
+-- Продажи категории за день
+CREATE TABLE IF NOT EXISTS sales_daily_category (
+    day DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    order_lines BIGINT NOT NULL DEFAULT 0,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, category_id)
+);
+
+-- Итоги покупателя за всё время
+CREATE TABLE IF NOT EXISTS sales_customer (
+    user_id BIGINT PRIMARY KEY,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_spent NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    last_order_at TIMESTAMP
+);
+
+-- Продажи по месяцам (month - первый день месяца)
+CREATE TABLE IF NOT EXISTS sales_monthly (
+    month DATE PRIMARY KEY,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    completed_revenue NUMERIC(14, 2) NOT NULL DEFAULT 0
+);
+
+-- Итоги букета за всё время: отчёты по букетам не суммируют дни
+CREATE TABLE IF NOT EXISTS sales_bouquet_total (
+    bouquet_id BIGINT PRIMARY KEY,
+    order_lines BIGINT NOT NULL DEFAULT 0,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0
+);
+
+-- Итоги категории за всё время
+CREATE TABLE IF NOT EXISTS sales_category_total (
+    category_id BIGINT PRIMARY KEY,
+    order_lines BIGINT NOT NULL DEFAULT 0,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0
+);
+
+-- Общие итоги магазина: всегда одна строка с id = 1
+CREATE TABLE IF NOT EXISTS sales_total (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    order_count BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    completed_revenue NUMERIC(14, 2) NOT NULL DEFAULT 0
+);
@@ -57,19 +57,24 @@ class AdminManager {
     }
 
     fetchStatistics() {
-        fetch('/flowershop/api/orders/stats/count-by-status?status=PENDING')
-            .then(response => response.json())
-            .then(data => {
-                if (data.success) {
-                    const pendingOrdersElement = document.getElementById('pendingOrdersCount');
-                    if (pendingOrdersElement) {
-                        pendingOrdersElement.textContent = data.data;
-                    }
-                }
-            })
-            .catch(error => {
-                console.error('Error fetching statistics:', error);
-            });
+        // Счетчики приходят по SSE: снимок при подключении, дальше изменения заказов
+        if (!window.EventSource) {
+            return;
+        }
+        const source = new EventSource('/api/admin/stream');
+        const updatePending = (e) => {
+            const data = JSON.parse(e.data);
+            const pendingOrdersElement = document.getElementById('pendingOrdersCount');
+            if (pendingOrdersElement && data.counts) {
+                pendingOrdersElement.textContent = data.counts.PENDING;
+            }
+        };
+        source.addEventListener('snapshot', updatePending);
+        source.addEventListener('order-created', updatePending);
+        source.addEventListener('order-changed', updatePending);
+        source.onerror = (error) => {
+            console.error('Error in statistics stream:', error);
+        };
     }
 
     showRoleChangeModal(userId) {
@@ -254,7 +254,8 @@ const FlowerShop = {
         if (newQuantity < 1) newQuantity = 1;
         if (newQuantity > 99) newQuantity = 99;
 
-        await this.updateCartItem(bouquetId, newQuantity);
+        quantityInput.value = newQuantity;
+        this.updateCartItem(bouquetId, newQuantity);
     },
 
     updateQuantityInput: async function(bouquetId) {
@@ -267,17 +268,34 @@ const FlowerShop = {
         if (newQuantity > 99) newQuantity = 99;
 
         quantityInput.value = newQuantity;
-        await this.updateCartItem(bouquetId, newQuantity);
+        this.updateCartItem(bouquetId, newQuantity);
     },
 
-    updateCartItem: async function(bouquetId, quantity) {
+    // Изменения количества копятся и отправляются одним запросом /api/cart/batch
+    pendingQuantities: new Map(),
+    flushTimer: null,
+
+    updateCartItem: function(bouquetId, quantity) {
+        this.pendingQuantities.set(bouquetId, quantity);
+        clearTimeout(this.flushTimer);
+        this.flushTimer = setTimeout(() => this.flushCartUpdates(), 400);
+    },
+
+    flushCartUpdates: async function() {
+        if (this.pendingQuantities.size === 0) return;
+
+        const operations = Array.from(this.pendingQuantities, ([bouquetId, quantity]) =>
+            ({ type: 'UPDATE', bouquetId: bouquetId, quantity: quantity }));
+        this.pendingQuantities.clear();
+
         try {
-            const response = await fetch(`/api/cart/update/${bouquetId}?quantity=${quantity}`, {
-                method: 'PUT',
+            const response = await fetch('/api/cart/batch', {
+                method: 'POST',
                 headers: {
                     'Content-Type': 'application/json',
                     'X-CSRF-TOKEN': document.querySelector('meta[name="_csrf"]').content
-                }
+                },
+                body: JSON.stringify({ operations: operations })
             });
 
             const result = await response.json();
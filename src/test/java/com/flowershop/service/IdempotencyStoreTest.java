@@ -0,0 +1,177 @@
+package com.flowershop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowershop.exception.IdempotencyKeyReusedException;
+import com.flowershop.exception.RequestInProgressException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private static final int THREADS = 8;
+
+    private final IdempotencyStore store = new IdempotencyStore(new ObjectMapper(), 3600, 5000, 1000);
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentDuplicatesRunActionOnceAndShareResult() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(pool.submit(() -> store.execute("user:1", "key-1", "hash", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "ORD-1";
+            })));
+        }
+
+        // Первый запрос выполняется, остальные к этому моменту ждут его результата
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("ORD-1");
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicatesGetFirstRequestError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Object> first = pool.submit(() -> store.execute("user:1", "key-1", "hash", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("Недостаточно товара");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Object> duplicate = pool.submit(() -> store.execute("user:1", "key-1", "hash", () -> "never"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> duplicate.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause().hasMessage("Недостаточно товара");
+    }
+
+    @Test
+    void repeatedKeyReturnsStoredResultWithoutRunningAgain() {
+        AtomicInteger executions = new AtomicInteger();
+
+        String first = store.execute("user:1", "key-1", "hash", () -> "ORD-" + executions.incrementAndGet());
+        String second = store.execute("user:1", "key-1", "hash", () -> "ORD-" + executions.incrementAndGet());
+
+        assertThat(first).isEqualTo("ORD-1");
+        assertThat(second).isEqualTo("ORD-1");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() {
+        store.execute("user:1", "key-1", store.fingerprint(Map.of("qty", 1)), () -> "ORD-1");
+
+        assertThatThrownBy(() -> store.execute("user:1", "key-1", store.fingerprint(Map.of("qty", 2)), () -> "ORD-2"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void scopesDoNotShareKeys() {
+        String first = store.execute("user:1", "key-1", "hash", () -> "ORD-1");
+        String second = store.execute("user:2", "key-1", "hash", () -> "ORD-2");
+
+        assertThat(first).isEqualTo("ORD-1");
+        assertThat(second).isEqualTo("ORD-2");
+    }
+
+    @Test
+    void failureReleasesKeyForRetry() {
+        assertThatThrownBy(() -> store.execute("user:1", "key-1", "hash", () -> {
+            throw new IllegalStateException("Ошибка");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> store.execute("user:1", "key-1", "hash", () -> {
+            throw new OutOfMemoryError("test");
+        })).isInstanceOf(OutOfMemoryError.class);
+
+        assertThat(store.execute("user:1", "key-1", "hash", () -> "ORD-1")).isEqualTo("ORD-1");
+    }
+
+    @Test
+    void duplicateGivesUpAfterWaitTimeout() throws Exception {
+        IdempotencyStore impatient = new IdempotencyStore(new ObjectMapper(), 3600, 50, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = pool.submit(() -> impatient.execute("user:1", "key-1", "hash", () -> {
+            started.countDown();
+            await(release);
+            return "ORD-1";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> impatient.execute("user:1", "key-1", "hash", () -> "ORD-2"))
+                .isInstanceOf(RequestInProgressException.class);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("ORD-1");
+    }
+
+    @Test
+    void withoutKeyActionAlwaysRuns() {
+        AtomicInteger executions = new AtomicInteger();
+
+        store.execute("user:1", null, "hash", executions::incrementAndGet);
+        store.execute("user:1", " ", "hash", executions::incrementAndGet);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void rejectsTooLongKey() {
+        String key = "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1);
+
+        assertThatThrownBy(() -> store.execute("user:1", key, "hash", () -> "ORD-1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fingerprintDependsOnlyOnContent() {
+        assertThat(store.fingerprint(Map.of("qty", 1))).isEqualTo(store.fingerprint(Map.of("qty", 1)))
+                .isNotEqualTo(store.fingerprint(Map.of("qty", 2)))
+                .hasSize(64);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
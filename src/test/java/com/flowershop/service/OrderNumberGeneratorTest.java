@@ -0,0 +1,109 @@
+package com.flowershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderNumberGeneratorTest {
+
+    // 2024-06-01T00:00:00Z - любое время после эпохи магазина
+    private static final long NOW = 1717200000000L;
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    @Test
+    void formatsFixedLengthBase36WithPrefix() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7, () -> NOW);
+
+        String number = generator.next();
+
+        assertThat(number).matches("ORD-[0-9A-Z]{12}");
+        assertThat(millis(number)).isEqualTo(NOW - EPOCH_MILLIS);
+        assertThat(node(number)).isEqualTo(7);
+        assertThat(sequence(number)).isZero();
+    }
+
+    @Test
+    void masksNodeIdToTenBits() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1024 + 5, () -> NOW);
+
+        assertThat(node(generator.next())).isEqualTo(5);
+    }
+
+    @Test
+    void sameMillisecondIncrementsSequence() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, () -> NOW);
+
+        String first = generator.next();
+        String second = generator.next();
+
+        assertThat(millis(second)).isEqualTo(millis(first));
+        assertThat(sequence(second)).isEqualTo(sequence(first) + 1);
+    }
+
+    @Test
+    void sequenceOverflowBorrowsNextMillisecond() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, () -> NOW);
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 4097; i++) {
+            numbers.add(generator.next());
+        }
+
+        String last = numbers.get(4096);
+        assertThat(sequence(numbers.get(4095))).isEqualTo(4095);
+        assertThat(millis(last)).isEqualTo(NOW - EPOCH_MILLIS + 1);
+        assertThat(sequence(last)).isZero();
+        assertThat(new HashSet<>(numbers)).hasSize(numbers.size());
+        assertThat(numbers).isSorted();
+    }
+
+    @Test
+    void clockGoingBackwardsNeitherRepeatsNorDecreases() {
+        AtomicLong clock = new AtomicLong(NOW);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock::get);
+
+        String beforeSkew = generator.next();
+        clock.set(NOW - 5000);
+        String afterSkew = generator.next();
+        String stillBehind = generator.next();
+
+        assertThat(afterSkew).isGreaterThan(beforeSkew);
+        assertThat(stillBehind).isGreaterThan(afterSkew);
+        assertThat(millis(afterSkew)).isEqualTo(millis(beforeSkew));
+    }
+
+    @Test
+    void clockCatchingUpResetsSequence() {
+        AtomicLong clock = new AtomicLong(NOW);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock::get);
+
+        generator.next();
+        generator.next();
+        clock.set(NOW + 1);
+        String number = generator.next();
+
+        assertThat(millis(number)).isEqualTo(NOW - EPOCH_MILLIS + 1);
+        assertThat(sequence(number)).isZero();
+    }
+
+    private static long value(String number) {
+        return Long.parseLong(number.substring("ORD-".length()), 36);
+    }
+
+    private static long millis(String number) {
+        return value(number) >>> 22;
+    }
+
+    private static long node(String number) {
+        return (value(number) >>> 12) & 1023;
+    }
+
+    private static long sequence(String number) {
+        return value(number) & 4095;
+    }
+}
@@ -0,0 +1,120 @@
+package com.flowershop.util;
+
+import com.flowershop.dto.CursorPage;
+import com.flowershop.entity.Bouquet;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    private static final Sort SORT = Sort.by("price").and(Sort.by("id"));
+
+    @Test
+    void nextCursorDecodesToKeysOfLastRowWithEntityTypes() {
+        List<Bouquet> rows = List.of(bouquet(1L, "10.00"), bouquet(2L, "12.50"), bouquet(3L, "15.00"));
+
+        CursorPage<Bouquet> page = KeysetCursor.toPage(rows, 2, KeysetCursorTest::keys, SORT, null);
+
+        assertThat(page.getContent()).extracting(Bouquet::getId).containsExactly(1L, 2L);
+        assertThat(page.isHasNext()).isTrue();
+
+        ScrollPosition position = KeysetCursor.decode(page.getNextCursor(), SORT, Bouquet.class);
+        assertThat(position).isInstanceOf(KeysetScrollPosition.class);
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        assertThat(keys).containsEntry("price", new BigDecimal("12.50")).containsEntry("id", 2L);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        List<Bouquet> rows = List.of(bouquet(1L, "10.00"), bouquet(2L, "12.50"));
+
+        CursorPage<Bouquet> page = KeysetCursor.toPage(rows, 2, KeysetCursorTest::keys, SORT, 2L);
+
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTotalElements()).isEqualTo(2L);
+    }
+
+    @Test
+    void blankTokenIsFirstPage() {
+        assertThat(KeysetCursor.decode(null, SORT, Bouquet.class).isInitial()).isTrue();
+        assertThat(KeysetCursor.decode(" ", SORT, Bouquet.class).isInitial()).isTrue();
+        assertThat(KeysetCursor.key("", SORT, Bouquet.class, "id")).isNull();
+    }
+
+    @Test
+    void keyReturnsSingleTypedValue() {
+        String token = token(SORT.toString(), Map.of("id", "42"));
+
+        assertThat(KeysetCursor.key(token, SORT, Bouquet.class, "id")).isEqualTo(42L);
+    }
+
+    @Test
+    void rejectsCursorIssuedForAnotherSort() {
+        String token = token(Sort.by("name").and(Sort.by("id")).toString(), Map.of("id", "1"));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token, SORT, Bouquet.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("другой сортировки");
+    }
+
+    @Test
+    void rejectsGarbageToken() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!", SORT, Bouquet.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+    }
+
+    @Test
+    void rejectsTamperedValue() {
+        String token = token(SORT.toString(), Map.of("id", "1 OR 1=1"));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token, SORT, Bouquet.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+    }
+
+    @Test
+    void rejectsUnknownProperty() {
+        String token = token(SORT.toString(), Map.of("password", "x"));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token, SORT, Bouquet.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("password");
+    }
+
+    private static Bouquet bouquet(Long id, String price) {
+        Bouquet bouquet = new Bouquet();
+        bouquet.setId(id);
+        bouquet.setPrice(new BigDecimal(price));
+        return bouquet;
+    }
+
+    private static Map<String, Object> keys(Bouquet bouquet) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("price", bouquet.getPrice());
+        keys.put("id", bouquet.getId());
+        return keys;
+    }
+
+    // Токен того же формата, что выдаёт KeysetCursor, но с произвольным содержимым
+    private static String token(String sort, Map<String, String> keys) {
+        StringBuilder json = new StringBuilder("{\"s\":\"").append(sort).append("\",\"k\":{");
+        keys.forEach((property, value) -> json.append('"').append(property).append("\":\"").append(value).append("\","));
+        json.setLength(json.length() - 1);
+        json.append("}}");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
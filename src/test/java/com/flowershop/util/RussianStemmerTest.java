@@ -0,0 +1,73 @@
+package com.flowershop.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RussianStemmerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "роза, роз",
+            "розы, роз",
+            "розами, роз",
+            "пионы, пион",
+            "тюльпанов, тюльпан",
+            "лилии, лил",
+            "ромашка, ромашк"
+    })
+    void removesNounEndings(String word, String stem) {
+        assertThat(RussianStemmer.stem(word)).isEqualTo(stem);
+    }
+
+    @Test
+    void wordFormsShareOneStem() {
+        assertThat(RussianStemmer.stem("розами"))
+                .isEqualTo(RussianStemmer.stem("розы"))
+                .isEqualTo(RussianStemmer.stem("роза"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "красивые, красив",
+            "красивая, красив",
+            "свадебный, свадебн"
+    })
+    void removesAdjectiveEndings(String word, String stem) {
+        assertThat(RussianStemmer.stem(word)).isEqualTo(stem);
+    }
+
+    @Test
+    void removesFirstGroupGerundOnlyAfterAOrYa() {
+        // "вши" после "а" отрезается, сама "а" остаётся
+        assertThat(RussianStemmer.stem("читавши")).isEqualTo("чита");
+    }
+
+    @Test
+    void removesSecondGroupGerundWithReflexive() {
+        assertThat(RussianStemmer.stem("вспомнившись")).isEqualTo("вспомн");
+    }
+
+    @Test
+    void removesSuperlativeAndCollapsesDoubleN() {
+        assertThat(RussianStemmer.stem("ценнейшие")).isEqualTo("цен");
+    }
+
+    @Test
+    void keepsDerivationalSuffixOutsideR2AndDropsSoftSign() {
+        assertThat(RussianStemmer.stem("нежность")).isEqualTo("нежност");
+    }
+
+    @Test
+    void leavesWordsWithoutVowelsUnchanged() {
+        assertThat(RussianStemmer.stem("пр")).isEqualTo("пр");
+        assertThat(RussianStemmer.stem("")).isEmpty();
+    }
+
+    @Test
+    void leavesStemWithoutKnownSuffixUnchanged() {
+        assertThat(RussianStemmer.stem("букетик")).isEqualTo("букетик");
+    }
+}